@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Starting the built JAR file in a fresh JVM, with and without its class data sharing archive. The {@code mode} option
+ * opens a single website through the {@code none} backend, so the run ends right after its first launch and measures
+ * the time to first launch.
+ * <p>
+ * The JAR file and the archive are passed in through the {@code antika.jar} and {@code antika.archive} system
+ * properties, which {@code ./gradlew jmh} sets after building both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+@Fork(1)
+public class StartupBenchmark {
+
+    @Param({"help", "list", "mode"})
+    public String option;
+
+    @Param({"false", "true"})
+    public boolean archive;
+
+    private Path directory;
+    private List<String> command;
+
+    @Setup
+    public void setUp() throws IOException {
+        String jar = System.getProperty("antika.jar");
+        String archiveFile = System.getProperty("antika.archive");
+        if (jar == null || archiveFile == null) {
+            throw new IllegalStateException("Run the startup benchmark through ./gradlew jmh to build the JAR file");
+        }
+        directory = Files.createTempDirectory("antika-startup");
+        Files.writeString(directory.resolve("workflows.yml"), """
+                workflows:
+                  - mode: startup
+                    websites:
+                      - https://example.com
+                """);
+
+        command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Duser.home=" + directory);
+        if (archive) {
+            command.add("-XX:SharedArchiveFile=" + archiveFile);
+            command.add("-Xlog:cds=off");
+        }
+        command.add("-jar");
+        command.add(jar);
+        switch (option) {
+            case "help" -> command.add("--help");
+            case "list" -> command.add("--list");
+            default -> command.addAll(List.of("--mode", "startup", "--website-launcher", "none"));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int start() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        return process.waitFor();
+    }
+}
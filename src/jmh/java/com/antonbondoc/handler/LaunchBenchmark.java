@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.launcher.Launcher;
+import com.antonbondoc.model.LaunchResult;
+import com.antonbondoc.model.Workflow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatching the tools of a workflow against a launcher that does not start real processes or browsers, so only the
+ * overhead of the launch pipeline itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LaunchBenchmark {
+
+    @Param({"1", "10", "30", "100"})
+    public int tools;
+
+    @Param({"1", "8"})
+    public int parallelism;
+
+    private WorkflowHandler handler;
+    private Workflow workflow;
+
+    @Setup
+    public void setUp() {
+        Launcher stub = tool -> null;
+        handler = new WorkflowHandler(parallelism, stub, stub);
+        List<String> apps = new ArrayList<>();
+        List<String> websites = new ArrayList<>();
+        for (int i = 0; i < tools; i++) {
+            apps.add("/opt/tools/tool-" + i);
+            websites.add("https://example.com/" + i);
+        }
+        workflow = new Workflow("benchmark", apps, websites);
+    }
+
+    @Benchmark
+    public List<LaunchResult> openTools() {
+        return handler.openTools(workflow);
+    }
+}
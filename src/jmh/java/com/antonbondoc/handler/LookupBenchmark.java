@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.Workflow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Looking up a single workflow mode, both through the warm compiled cache and by streaming the workflow file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({"1000", "100000"})
+    public int modes;
+
+    @Param({"yaml", "json"})
+    public String format;
+
+    @Param({"first", "middle", "last", "missing"})
+    public String position;
+
+    private Path directory;
+    private FileHandler handler;
+    private Function<String, Optional<Workflow>> streamed;
+    private String mode;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("antika-lookup");
+        handler = WorkflowFixtures.write(directory, format, modes);
+        handler.rebuildCache();
+        streamed = handler instanceof YamlFileHandler yaml ? yaml::findWorkflowInFile
+                : ((JsonFileHandler) handler)::findWorkflowInFile;
+        mode = switch (position) {
+            case "first" -> WorkflowFixtures.mode(0);
+            case "middle" -> WorkflowFixtures.mode(modes / 2);
+            case "last" -> WorkflowFixtures.mode(modes - 1);
+            default -> "missing";
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        WorkflowFixtures.delete(directory);
+    }
+
+    @Benchmark
+    public Optional<Workflow> cached() {
+        return handler.findWorkflow(mode);
+    }
+
+    @Benchmark
+    public Optional<Workflow> streamed() {
+        return streamed.apply(mode);
+    }
+}
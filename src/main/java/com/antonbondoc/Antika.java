@@ -24,10 +24,27 @@
 
 package com.antonbondoc;
 
+import com.antonbondoc.daemon.AntikaDaemon;
+import com.antonbondoc.daemon.DaemonClient;
+import com.antonbondoc.handler.BrowserCommand;
 import com.antonbondoc.handler.FileHandler;
+import com.antonbondoc.handler.LaunchGraph;
+import com.antonbondoc.handler.LaunchHistory;
+import com.antonbondoc.handler.LaunchPlan;
+import com.antonbondoc.handler.LayeredFileHandler;
+import com.antonbondoc.handler.RunningTools;
+import com.antonbondoc.handler.WebsiteThrottle;
+import com.antonbondoc.handler.WorkflowEditor;
 import com.antonbondoc.handler.WorkflowHandler;
-import com.antonbondoc.handler.YamlFileHandler;
+import com.antonbondoc.handler.WorkflowIndex;
+import com.antonbondoc.handler.WorkflowMerger;
+import com.antonbondoc.handler.WorkflowStore;
+import com.antonbondoc.handler.WorkflowSwitch;
+import com.antonbondoc.launcher.Launcher;
+import com.antonbondoc.launcher.Launchers;
+import com.antonbondoc.model.LaunchResult;
 import com.antonbondoc.model.Workflow;
+import com.antonbondoc.telemetry.Telemetry;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -36,7 +53,23 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
+import java.io.Console;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 /**
@@ -58,44 +91,296 @@ public class Antika {
             .desc("List out the available workflow modes")
             .build();
 
+    private static final Option OPTION_PAGE_SIZE = Option.builder("pg")
+            .longOpt("page-size")
+            .hasArg()
+            .argName("lines")
+            .type(Number.class)
+            .desc("Pause the list of workflow modes after every given number of lines when run in a terminal")
+            .build();
+
     private static final Option OPTION_MODE = Option.builder("m")
             .longOpt("mode")
             .hasArg()
             .argName("workflow-mode")
             .optionalArg(false)
-            .desc("Select the current workflow mode")
+            .desc("Select the current workflow mode, or several separated by commas")
+            .build();
+
+    private static final Option OPTION_PARALLELISM = Option.builder("p")
+            .longOpt("parallelism")
+            .hasArg()
+            .argName("limit")
+            .type(Number.class)
+            .desc("Limit the number of tools launched at the same time (default: " + WorkflowHandler.DEFAULT_PARALLELISM + ")")
+            .build();
+
+    private static final Option OPTION_SWITCH = Option.builder("sw")
+            .longOpt("switch")
+            .numberOfArgs(2)
+            .argName("from> <to")
+            .desc("Close the applications only in the first workflow and open the tools only in the second one")
+            .build();
+
+    private static final Option OPTION_FORCE = Option.builder("f")
+            .longOpt("force")
+            .desc("Launch applications of the workflow even if they are already running")
+            .build();
+
+    private static final Option OPTION_PLAN = Option.builder("pl")
+            .longOpt("plan")
+            .desc("Print the launch order and the predicted launch time of the workflow without launching it")
+            .build();
+
+    private static final Option OPTION_CHECK = Option.builder("c")
+            .longOpt("check")
+            .desc("Report every unknown application, invalid URL and duplicate mode in the workflows without launching them")
+            .build();
+
+    private static final Option OPTION_ADD_MODE = Option.builder("am")
+            .longOpt("add-mode")
+            .hasArg()
+            .argName("mode")
+            .desc("Add a workflow without any tools to the workflow file, leaving the rest of the file as is")
             .build();
 
+    private static final Option OPTION_ADD_TOOL = Option.builder("at")
+            .longOpt("add-tool")
+            .numberOfArgs(2)
+            .argName("mode> <tool")
+            .desc("Add an application, or a website if it starts with a scheme or www., to a workflow, rewriting only "
+                    + "that workflow in the workflow file")
+            .build();
+
+    private static final Option OPTION_REMOVE_TOOL = Option.builder("rt")
+            .longOpt("remove-tool")
+            .numberOfArgs(2)
+            .argName("mode> <tool")
+            .desc("Remove an application or website from a workflow, rewriting only that workflow in the workflow "
+                    + "file")
+            .build();
+
+    private static final Option OPTION_BROWSER = Option.builder("b")
+            .longOpt("browser")
+            .hasArg()
+            .argName("command")
+            .desc("Open all websites with one browser command instead of one call per website (default: $"
+                    + BrowserCommand.ENVIRONMENT_VARIABLE + ")")
+            .build();
+
+    private static final Option OPTION_BROWSER_BATCH = Option.builder("bb")
+            .longOpt("browser-batch")
+            .hasArg()
+            .argName("size")
+            .type(Number.class)
+            .desc("Limit the number of websites per browser command (default: no limit)")
+            .build();
+
+    private static final Option OPTION_WEBSITE_LAUNCHER = Option.builder("wl")
+            .longOpt("website-launcher")
+            .hasArg()
+            .argName("backend")
+            .desc("Open websites through " + String.join(", ", Launchers.WEBSITE_BACKENDS)
+                    + " (default: " + Launchers.AUTO + ", the open command of the platform when installed)")
+            .build();
+
+    private static final Option OPTION_WEBSITE_RATE = Option.builder("wr")
+            .longOpt("website-rate")
+            .hasArg()
+            .argName("per-second")
+            .type(Number.class)
+            .desc("Open websites one at a time, at most the given number per second (default: no limit)")
+            .build();
+
+    private static final Option OPTION_WEBSITE_BURST = Option.builder("wb")
+            .longOpt("website-burst")
+            .hasArg()
+            .argName("count")
+            .type(Number.class)
+            .desc("Open up to the given number of websites concurrently after a pause when rate limited (default: 1)")
+            .build();
+
+    private static final Option OPTION_WEBSITE_HOST_RATE = Option.builder("wh")
+            .longOpt("website-host-rate")
+            .hasArg()
+            .argName("per-second")
+            .type(Number.class)
+            .desc("Open at most the given number of websites of the same host per second (default: no limit)")
+            .build();
+
+    private static final Option OPTION_STATS = Option.builder("s")
+            .longOpt("stats")
+            .desc("Print how long each phase and each tool took")
+            .build();
+
+    private static final Option OPTION_STATS_FILE = Option.builder("sf")
+            .longOpt("stats-file")
+            .hasArg()
+            .argName("file")
+            .desc("Append the stats of the run as a JSON line to the given file")
+            .build();
+
+    private static final Option OPTION_DAEMON = Option.builder("d")
+            .longOpt("daemon")
+            .desc("Keep Antika running to serve --mode and --list requests from this directory")
+            .build();
+
+    private static final Option OPTION_REBUILD_CACHE = Option.builder("rc")
+            .longOpt("rebuild-cache")
+            .desc("Rebuild the compiled workflow cache from the workflow file")
+            .build();
+
+    private static final Option OPTION_COMPLETION = Option.builder("cm")
+            .longOpt("completion")
+            .hasArg()
+            .argName("shell")
+            .desc("Print the bash or zsh completion script, which completes workflow modes without starting Antika")
+            .build();
+
+    private static final List<String> COMPLETION_SHELLS = List.of("bash", "zsh");
+
     private static Options initializeOptions() {
         return new Options()
                 .addOption(OPTION_HELP)
                 .addOption(OPTION_INIT)
                 .addOption(OPTION_LIST)
-                .addOption(OPTION_MODE);
+                .addOption(OPTION_PAGE_SIZE)
+                .addOption(OPTION_MODE)
+                .addOption(OPTION_SWITCH)
+                .addOption(OPTION_PARALLELISM)
+                .addOption(OPTION_FORCE)
+                .addOption(OPTION_PLAN)
+                .addOption(OPTION_CHECK)
+                .addOption(OPTION_ADD_MODE)
+                .addOption(OPTION_ADD_TOOL)
+                .addOption(OPTION_REMOVE_TOOL)
+                .addOption(OPTION_BROWSER)
+                .addOption(OPTION_BROWSER_BATCH)
+                .addOption(OPTION_WEBSITE_LAUNCHER)
+                .addOption(OPTION_WEBSITE_RATE)
+                .addOption(OPTION_WEBSITE_BURST)
+                .addOption(OPTION_WEBSITE_HOST_RATE)
+                .addOption(OPTION_STATS)
+                .addOption(OPTION_STATS_FILE)
+                .addOption(OPTION_DAEMON)
+                .addOption(OPTION_REBUILD_CACHE)
+                .addOption(OPTION_COMPLETION);
+    }
+
+    private static final int MAX_SUGGESTIONS = 5;
+
+    /**
+     * How long an application may take to exit when switching workflows before it is killed.
+     */
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+    private static RunningTools runningTools;
+
+    /**
+     * Created on first use, so options that never read a workflow file such as {@code --help} do not pay for it.
+     */
+    private static FileHandler fileHandler;
+
+    private static FileHandler fileHandler() {
+        if (fileHandler == null) {
+            fileHandler = new LayeredFileHandler();
+        }
+        return fileHandler;
     }
 
-    private static final FileHandler fileHandler = new YamlFileHandler();
-    private static final WorkflowHandler workflowHandler = new WorkflowHandler();
+    private static RunningTools runningTools() {
+        if (runningTools == null) {
+            runningTools = new RunningTools();
+        }
+        return runningTools;
+    }
+
+    /**
+     * Handle the arguments given by the user, recording the stats of the run if requested
+     *
+     * @param cmd        the command line containing the argument parameters passed by the user
+     * @param parseNanos the time it took to parse the arguments
+     * @return the exit status of the request
+     */
+    private static int processOptions(Options options, CommandLine cmd, long parseNanos) throws ParseException {
+        boolean printStats = cmd.hasOption(OPTION_STATS);
+        String statsFile = cmd.getOptionValue(OPTION_STATS_FILE);
+        if (!printStats && statsFile == null) {
+            return processOptions(options, cmd);
+        }
+        Telemetry telemetry = Telemetry.start();
+        telemetry.record(Telemetry.PHASE_ARGUMENTS, parseNanos);
+        try {
+            return processOptions(options, cmd);
+        } finally {
+            Telemetry.stop();
+            if (printStats) {
+                telemetry.printReport(System.out);
+            }
+            if (statsFile != null) {
+                try {
+                    telemetry.appendTo(Paths.get(statsFile));
+                } catch (IOException e) {
+                    System.err.printf("[WARN] Unable to write the stats file: %s%n", e.getMessage());
+                }
+            }
+        }
+    }
 
     /**
      * Handle the arguments given by the user to use Antika
      *
      * @param cmd the command line containing the argument parameters passed by the user
+     * @return the exit status of the request
      */
-    private static void processOptions(Options options, CommandLine cmd) {
+    private static int processOptions(Options options, CommandLine cmd) throws ParseException {
+        boolean rebuildCache = cmd.hasOption(OPTION_REBUILD_CACHE);
+        if (rebuildCache) {
+            fileHandler().rebuildCache();
+        }
+
         if (cmd.hasOption(OPTION_HELP)) {
             printHelp(options);
+        } else if (cmd.hasOption(OPTION_COMPLETION)) {
+            printCompletion(options, cmd.getOptionValue(OPTION_COMPLETION).trim());
+        } else if (cmd.hasOption(OPTION_DAEMON)) {
+            runDaemon();
         } else if (cmd.hasOption(OPTION_INIT)) {
-            fileHandler.createWorkflowFile();
+            fileHandler().createWorkflowFile();
         } else if (cmd.hasOption(OPTION_LIST)) {
-            printWorkflowModes();
+            printWorkflowModes(getPageSize(cmd));
+        } else if (cmd.hasOption(OPTION_CHECK)) {
+            return checkWorkflows();
+        } else if (cmd.hasOption(OPTION_ADD_MODE)) {
+            return addMode(cmd.getOptionValue(OPTION_ADD_MODE).trim());
+        } else if (cmd.hasOption(OPTION_ADD_TOOL)) {
+            String[] values = cmd.getOptionValues(OPTION_ADD_TOOL);
+            return addTool(values[0].trim(), values[1].trim());
+        } else if (cmd.hasOption(OPTION_REMOVE_TOOL)) {
+            String[] values = cmd.getOptionValues(OPTION_REMOVE_TOOL);
+            return removeTool(values[0].trim(), values[1].trim());
+        } else if (cmd.hasOption(OPTION_SWITCH)) {
+            String[] modes = cmd.getOptionValues(OPTION_SWITCH);
+            LaunchHistory history = new LaunchHistory();
+            return switchWorkflow(modes[0].trim(), modes[1].trim(), createWorkflowHandler(cmd, history), history);
         } else if (cmd.hasOption(OPTION_MODE)) {
-            String workflow = cmd.getOptionValue(OPTION_MODE).trim();
-            openWorkflow(workflow);
+            List<String> modes = parseModes(cmd.getOptionValue(OPTION_MODE));
+            if (modes.isEmpty()) {
+                throw new ParseException("No workflow mode selected");
+            }
+            LaunchHistory history = new LaunchHistory();
+            WorkflowHandler workflowHandler = createWorkflowHandler(cmd, history);
+            if (cmd.hasOption(OPTION_PLAN)) {
+                return printPlan(modes, workflowHandler, getParallelism(cmd));
+            }
+            return openWorkflow(modes, workflowHandler, history);
+        } else if (rebuildCache) {
+            System.out.println("Rebuilt the workflow cache");
         } else {
             System.out.println("Use antika --help (or -h) for a list of possible options");
             printHelp(options);
         }
+        return 0;
     }
 
     /**
@@ -108,43 +393,544 @@ public class Antika {
         formatter.printHelp("antika [option]", options);
     }
 
+    /**
+     * Prints out the completion script of the given shell, completing the current options of Antika.
+     *
+     * @param options the available flags for Antika
+     * @param shell   either bash or zsh
+     */
+    private static void printCompletion(Options options, String shell) throws ParseException {
+        if (!COMPLETION_SHELLS.contains(shell)) {
+            throw new ParseException(String.format("Unknown shell '%s', expected one of %s", shell,
+                    String.join(", ", COMPLETION_SHELLS)));
+        }
+        try (InputStream script = Antika.class.getResourceAsStream("/antika-completion." + shell)) {
+            if (script == null) {
+                throw new IOException("The completion script is missing from the Antika JAR file");
+            }
+            String names = options.getOptions().stream()
+                    .flatMap(option -> Stream.of("-" + option.getOpt(), "--" + option.getLongOpt()))
+                    .sorted()
+                    .collect(Collectors.joining(" "));
+            System.out.print(new String(script.readAllBytes(), StandardCharsets.UTF_8).replace("@OPTIONS@", names));
+        } catch (IOException e) {
+            System.err.print(e.getMessage());
+            System.exit(-1);
+        }
+    }
+
     /**
      * Open all tools related to the given workflow.
      * <p>
      * If the workflow is not valid, it would list out the available workflow selections
      *
-     * @param mode the chosen workflow mode
+     * @param modes           the chosen workflow modes
+     * @param workflowHandler the handler launching the tools
+     * @param history         the launch history to record the launch durations in
+     * @return the exit status of the request
      */
-    private static void openWorkflow(String mode) {
-        Workflow workflow = fileHandler.getWorkflow(mode);
-        workflowHandler.openTools(workflow);
+    private static int openWorkflow(List<String> modes, WorkflowHandler workflowHandler, LaunchHistory history) {
+        Optional<List<Workflow>> requested = resolveRequestedWorkflows(modes);
+        Optional<Workflow> match = requested.flatMap(Antika::mergeWorkflows);
+        if (match.isEmpty()) {
+            return -1;
+        }
+        List<LaunchResult> results = launch(match.get(), workflowHandler, history);
+        // Every requested mode keeps its own applications, so each one can be switched from on its own later
+        for (Workflow workflow : requested.get()) {
+            runningTools().record(workflow, results);
+        }
+        return 0;
     }
 
     /**
-     * Prints out the list of available workflow modes for Antika
+     * Switch from one workflow to another, keeping the tools both workflows share.
+     * <p>
+     * The applications Antika started for the first workflow that are not part of the second one are closed while the
+     * tools that are only part of the second workflow are opened.
+     *
+     * @param fromMode        the workflow mode being left
+     * @param toMode          the workflow mode being switched to
+     * @param workflowHandler the handler launching and closing the tools
+     * @param history         the launch history to record the launch durations in
+     * @return the exit status of the request
      */
-    private static void printWorkflowModes() {
-        Set<String> workflowModes = fileHandler.getWorkflowModes();
+    private static int switchWorkflow(String fromMode, String toMode, WorkflowHandler workflowHandler,
+                                      LaunchHistory history) {
+        Optional<Workflow> from = resolveWorkflow(fromMode);
+        Optional<Workflow> to = from.isPresent() ? resolveWorkflow(toMode) : Optional.empty();
+        if (to.isEmpty()) {
+            return -1;
+        }
+        WorkflowSwitch workflowSwitch = WorkflowSwitch.of(from.get(), to.get());
+        Map<String, ProcessHandle> kept = new LinkedHashMap<>();
+        Map<String, ProcessHandle> closed = new LinkedHashMap<>();
+        runningTools().read(from.get().getMode())
+                .forEach((tool, process) -> (workflowSwitch.isClosed(tool) ? closed : kept).put(tool, process));
+
+        Thread closing = Thread.ofVirtual().start(() -> workflowHandler.closeTools(closed, CLOSE_TIMEOUT));
+        Workflow opened = workflowSwitch.getOpened();
+        List<LaunchResult> results = opened.getApps().isEmpty() && opened.getWebsites().isEmpty()
+                ? List.of()
+                : launch(opened, workflowHandler, history);
+        try {
+            closing.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // The shared applications now belong to the workflow switched to
+        runningTools().write(from.get().getMode(), Map.of());
+        Map<String, ProcessHandle> running = runningTools().read(to.get().getMode());
+        running.putAll(kept);
+        runningTools().write(to.get().getMode(), running);
+        runningTools().record(to.get(), results);
+        return 0;
+    }
+
+    /**
+     * Launch the tools of the workflow, reporting the ones that could not be opened.
+     *
+     * @return the outcome of each launch
+     */
+    private static List<LaunchResult> launch(Workflow workflow, WorkflowHandler workflowHandler,
+                                             LaunchHistory history) {
+        List<LaunchResult> results = Telemetry.time(Telemetry.PHASE_LAUNCH, () -> workflowHandler.openTools(workflow));
+        Telemetry.recordLaunches(workflow.getMode(), results);
+        history.record(results);
+        for (LaunchResult result : results) {
+            if (!result.success()) {
+                System.err.printf("[ERROR] Unable to open '%s': %s%n", result.tool(), result.error());
+            }
+        }
+        WebsiteThrottle throttle = workflowHandler.getThrottle();
+        if (throttle != null) {
+            System.out.printf("Websites: %d queued, %d sent, %d failed%n",
+                    throttle.getQueued(), throttle.getSent(), throttle.getFailed());
+        }
+        return results;
+    }
+
+    /**
+     * Create the handler launching the tools with the launch options from the command line.
+     *
+     * @param cmd     the command line containing the argument parameters passed by the user
+     * @param history the launch history ordering the launches
+     * @return the workflow handler
+     */
+    private static WorkflowHandler createWorkflowHandler(CommandLine cmd, LaunchHistory history)
+            throws ParseException {
+        return new WorkflowHandler(getParallelism(cmd), Launchers.forApps(), getWebsiteLauncher(cmd),
+                getBrowserCommand(cmd), cmd.hasOption(OPTION_FORCE), history, getWebsiteThrottle(cmd));
+    }
+
+    private static int getParallelism(CommandLine cmd) throws ParseException {
+        Number parallelism = cmd.getParsedOptionValue(OPTION_PARALLELISM, WorkflowHandler.DEFAULT_PARALLELISM);
+        if (parallelism.intValue() < 1) {
+            throw new ParseException("The parallelism limit must be at least 1");
+        }
+        return parallelism.intValue();
+    }
+
+    /**
+     * Print the order the tools of the given workflow would be launched in, without launching them.
+     *
+     * @param modes           the chosen workflow modes
+     * @param workflowHandler the handler that would launch the tools
+     * @param parallelism     the maximum number of launches in flight at once
+     * @return the exit status of the request
+     */
+    private static int printPlan(List<String> modes, WorkflowHandler workflowHandler, int parallelism) {
+        Optional<Workflow> match = resolveWorkflows(modes);
+        if (match.isEmpty()) {
+            return -1;
+        }
+        LaunchPlan plan = workflowHandler.plan(match.get());
+        System.out.printf("Launch plan of '%s' (parallelism %d)%n", match.get().getMode(), parallelism);
         int idx = 0;
+        for (LaunchPlan.Step step : plan.getSteps()) {
+            String estimate = step.estimate()
+                    .map(duration -> String.format("%10.2f ms", duration.toNanos() / 1e6))
+                    .orElse(String.format("%13s", "no history"));
+            System.out.printf("%d. %-8s %s  %s%n", ++idx, step.node().getType(), estimate, step.node().getTool());
+        }
+        System.out.printf("Predicted launch time: %.2f ms%n", plan.getMakespan().toNanos() / 1e6);
+        return 0;
+    }
+
+    /**
+     * Read the browser command from the command line, falling back to the environment.
+     *
+     * @param cmd the command line containing the argument parameters passed by the user
+     * @return the browser command, or {@code null} if websites should open through the desktop default browser
+     */
+    private static BrowserCommand getBrowserCommand(CommandLine cmd) throws ParseException {
+        String commandLine = cmd.getOptionValue(OPTION_BROWSER, System.getenv(BrowserCommand.ENVIRONMENT_VARIABLE));
+        if (commandLine == null || commandLine.isBlank()) {
+            return null;
+        }
+        Number batchSize = cmd.getParsedOptionValue(OPTION_BROWSER_BATCH, 0);
+        if (batchSize.intValue() < 0) {
+            throw new ParseException("The browser batch size must not be negative");
+        }
+        return BrowserCommand.parse(commandLine, batchSize.intValue());
+    }
+
+    /**
+     * Select the backend opening the websites, which is only created once the first website is opened.
+     *
+     * @param cmd the command line containing the argument parameters passed by the user
+     * @return the launcher of the websites
+     */
+    private static Launcher getWebsiteLauncher(CommandLine cmd) throws ParseException {
+        try {
+            return Launchers.forWebsites(cmd.getOptionValue(OPTION_WEBSITE_LAUNCHER, Launchers.AUTO));
+        } catch (IllegalArgumentException e) {
+            throw new ParseException(e.getMessage());
+        }
+    }
+
+    /**
+     * Create the throttle pacing the websites when a website rate or a rate per host is given.
+     *
+     * @param cmd the command line containing the argument parameters passed by the user
+     * @return the website throttle, or {@code null} if the websites are not rate limited
+     */
+    private static WebsiteThrottle getWebsiteThrottle(CommandLine cmd) throws ParseException {
+        if (!cmd.hasOption(OPTION_WEBSITE_RATE) && !cmd.hasOption(OPTION_WEBSITE_HOST_RATE)) {
+            return null;
+        }
+        Number rate = cmd.getParsedOptionValue(OPTION_WEBSITE_RATE, Double.POSITIVE_INFINITY);
+        Number burst = cmd.getParsedOptionValue(OPTION_WEBSITE_BURST, 1);
+        Number hostRate = cmd.getParsedOptionValue(OPTION_WEBSITE_HOST_RATE, 0);
+        try {
+            return new WebsiteThrottle(rate.doubleValue(), burst.intValue(), hostRate.doubleValue());
+        } catch (IllegalArgumentException e) {
+            throw new ParseException(e.getMessage());
+        }
+    }
+
+    /**
+     * Split the comma separated workflow modes, dropping blank and repeated ones.
+     *
+     * @param value the value of the mode option
+     * @return the distinct workflow modes, in the order given
+     */
+    private static List<String> parseModes(String value) {
+        Set<String> folded = new HashSet<>();
+        List<String> modes = new ArrayList<>();
+        for (String mode : value.split(",")) {
+            mode = mode.trim();
+            if (!mode.isEmpty() && folded.add(mode.toLowerCase(Locale.ROOT))) {
+                modes.add(mode);
+            }
+        }
+        return modes;
+    }
+
+    /**
+     * Find the workflows of the given modes and merge them into a single workflow.
+     * <p>
+     * A single mode is looked up on its own, while several modes are all resolved against one load of the workflow
+     * file.
+     *
+     * @param modes the chosen workflow modes or the start of them
+     * @return the workflow with the tools of every mode, or empty if a mode has no workflow
+     */
+    private static Optional<Workflow> resolveWorkflows(List<String> modes) {
+        return resolveRequestedWorkflows(modes).flatMap(Antika::mergeWorkflows);
+    }
+
+    /**
+     * Find the workflow of each of the given modes.
+     *
+     * @param modes the chosen workflow modes or the start of them
+     * @return the workflows of the modes in the same order, or empty if a mode has no workflow
+     */
+    private static Optional<List<Workflow>> resolveRequestedWorkflows(List<String> modes) {
+        if (modes.size() == 1) {
+            return resolveWorkflow(modes.getFirst()).map(List::of);
+        }
+        WorkflowIndex index = fileHandler().getWorkflowIndex();
+        List<Workflow> workflows = new ArrayList<>(modes.size());
+        boolean missing = false;
+        for (String mode : modes) {
+            Optional<Workflow> match = resolveWorkflow(index, mode);
+            match.ifPresent(workflows::add);
+            missing |= match.isEmpty();
+        }
+        return missing ? Optional.empty() : Optional.of(workflows);
+    }
+
+    /**
+     * @return the single workflow with the tools of every given workflow, or empty if their dependencies form a cycle
+     */
+    private static Optional<Workflow> mergeWorkflows(List<Workflow> workflows) {
+        if (workflows.size() == 1) {
+            return Optional.of(workflows.getFirst());
+        }
+        Workflow merged = WorkflowMerger.merge(workflows);
+        try {
+            // Dependencies of different workflows may still form a cycle together
+            LaunchGraph.validate(List.of(merged));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return Optional.empty();
+        }
+        return Optional.of(merged);
+    }
+
+    /**
+     * Find the workflow of the given mode, falling back to the single mode starting with it.
+     * <p>
+     * If neither exists, it would list out the closest workflow modes instead
+     *
+     * @param mode the chosen workflow mode or the start of it
+     * @return the matching workflow, if any
+     */
+    private static Optional<Workflow> resolveWorkflow(String mode) {
+        Optional<Workflow> match = fileHandler().findWorkflow(mode);
+        if (match.isPresent()) {
+            return match;
+        }
+        return resolveWorkflow(fileHandler().getWorkflowIndex(), mode);
+    }
+
+    /**
+     * Find the workflow of the given mode in the index, falling back to the single mode starting with it.
+     *
+     * @param index the index over the workflow modes
+     * @param mode  the chosen workflow mode or the start of it
+     * @return the matching workflow, if any
+     */
+    private static Optional<Workflow> resolveWorkflow(WorkflowIndex index, String mode) {
+        Optional<Workflow> match = index.find(mode);
+        if (match.isPresent()) {
+            return match;
+        }
+        List<String> prefixed = index.findByPrefix(mode, MAX_SUGGESTIONS + 1);
+        if (prefixed.size() == 1) {
+            return index.find(prefixed.getFirst());
+        }
+        if (!prefixed.isEmpty()) {
+            System.err.printf("'%s' matches more than one workflow: %s%n", mode,
+                    String.join(", ", prefixed.subList(0, Math.min(prefixed.size(), MAX_SUGGESTIONS))));
+            return Optional.empty();
+        }
+        System.err.printf("'%s' workflow does not exist%n", mode);
+        List<String> suggestions = index.suggest(mode, MAX_SUGGESTIONS);
+        if (!suggestions.isEmpty()) {
+            System.err.printf("Did you mean: %s%n", String.join(", ", suggestions));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Compile every workflow and report all of their problems in one pass.
+     *
+     * @return the exit status of the request
+     */
+    private static int checkWorkflows() {
+        WorkflowIndex index;
+        try {
+            index = fileHandler().readWorkflowIndex();
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return -1;
+        }
+        List<String> problems = new ArrayList<>();
+        Set<String> modes = new HashSet<>();
+        for (Workflow workflow : index.getWorkflows()) {
+            if (workflow.getMode() == null) {
+                continue;
+            }
+            if (!modes.add(workflow.getMode().toLowerCase(Locale.ROOT))) {
+                problems.add(String.format("'%s' workflow is defined more than once", workflow.getMode()));
+            }
+            for (LaunchGraph.Node node : LaunchGraph.compile(workflow).getNodes()) {
+                if (node.getProblem() != null) {
+                    problems.add(String.format("'%s' workflow: '%s' %s",
+                            workflow.getMode(), node.getTool(), node.getProblem()));
+                }
+            }
+        }
+        problems.forEach(System.err::println);
+        System.out.printf("Checked %d workflows, found %d problems%n", modes.size(), problems.size());
+        return problems.isEmpty() ? 0 : -1;
+    }
+
+    /**
+     * Add an empty workflow to the workflow file with the highest precedence.
+     *
+     * @param mode the mode of the new workflow
+     * @return the exit status of the request
+     */
+    private static int addMode(String mode) {
+        WorkflowEditor editor = new WorkflowEditor(fileHandler().getWorkflowFile(mode));
+        try {
+            editor.addMode(mode);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return -1;
+        }
+        System.out.printf("Added the '%s' workflow to %s%n", mode, editor.getWorkflowFile());
+        return 0;
+    }
+
+    /**
+     * Add a tool to a workflow in the workflow file the workflow is read from.
+     *
+     * @param mode the workflow mode
+     * @param tool the application path or website URL
+     * @return the exit status of the request
+     */
+    private static int addTool(String mode, String tool) {
+        WorkflowEditor editor = new WorkflowEditor(fileHandler().getWorkflowFile(mode));
+        String tools = WorkflowEditor.isWebsite(tool) ? "websites" : "apps";
+        try {
+            if (!editor.addTool(mode, tool)) {
+                System.out.printf("[WARN] '%s' is already one of the %s of '%s'%n", tool, tools, mode);
+                return 0;
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return -1;
+        }
+        System.out.printf("Added '%s' to the %s of '%s'%n", tool, tools, mode);
+        return 0;
+    }
+
+    /**
+     * Remove a tool from a workflow in the workflow file the workflow is read from.
+     *
+     * @param mode the workflow mode
+     * @param tool the application path or website URL
+     * @return the exit status of the request
+     */
+    private static int removeTool(String mode, String tool) {
+        WorkflowEditor editor = new WorkflowEditor(fileHandler().getWorkflowFile(mode));
+        try {
+            if (!editor.removeTool(mode, tool)) {
+                System.out.printf("[WARN] '%s' is not one of the tools of '%s'%n", tool, mode);
+                return 0;
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return -1;
+        }
+        System.out.printf("Removed '%s' from '%s'%n", tool, mode);
+        return 0;
+    }
+
+    /**
+     * Prints out the list of available workflow modes for Antika in file order, as they are read from the workflow file
+     *
+     * @param pageSize the number of modes to print before waiting for the user, or 0 to print them all at once
+     */
+    private static void printWorkflowModes(int pageSize) {
+        Console console = pageSize > 0 ? System.console() : null;
+        int[] idx = {0};
         System.out.println("List of Antika Workflows");
-        for (String mode : workflowModes) {
-            System.out.printf("%d. %s%n", ++idx, mode);
+        fileHandler().forEachWorkflowMode(mode -> {
+            System.out.printf("%d. %s%n", ++idx[0], mode);
+            if (console == null || idx[0] % pageSize != 0) {
+                return true;
+            }
+            String answer = console.readLine("-- More (Enter to continue, q to quit) --");
+            return answer != null && !answer.strip().equalsIgnoreCase("q");
+        });
+    }
+
+    private static int getPageSize(CommandLine cmd) throws ParseException {
+        Number pageSize = cmd.getParsedOptionValue(OPTION_PAGE_SIZE, 0);
+        if (pageSize.intValue() < 0) {
+            throw new ParseException("The page size must not be negative");
         }
+        return pageSize.intValue();
     }
 
-    public static void main(String[] args) {
+    /**
+     * Serve forwarded requests from workflows kept in memory, reloaded whenever the workflow file changes.
+     */
+    private static void runDaemon() {
+        try (WorkflowStore store = new WorkflowStore(fileHandler())) {
+            fileHandler = store;
+            new AntikaDaemon(Antika::serve).run();
+        } catch (IOException e) {
+            System.err.print(e.getMessage());
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Run the request of the user in this process.
+     *
+     * @param args the arguments passed by the user
+     * @return the exit status of the request
+     */
+    private static int execute(String[] args) {
         Options options = initializeOptions();
         CommandLineParser parser = new DefaultParser();
         try {
             if (args.length == 0) {
                 throw new ParseException("No option selected");
             }
+            long start = System.nanoTime();
             CommandLine cmd = parser.parse(options, args);
-            processOptions(options, cmd);
+            return processOptions(options, cmd, System.nanoTime() - start);
         } catch (ParseException e) {
             System.err.println(e.getMessage());
             printHelp(options);
-            System.exit(-1);
+            return -1;
+        }
+    }
+
+    /**
+     * Run a request forwarded to the daemon. Only the read-only {@code --mode} and {@code --list} requests are served,
+     * everything else is left to the client.
+     *
+     * @param args the arguments passed by the user
+     * @return the exit status of the request, or empty if the daemon does not serve it
+     */
+    private static OptionalInt serve(String[] args) {
+        Options options = initializeOptions();
+        try {
+            long start = System.nanoTime();
+            CommandLine cmd = new DefaultParser().parse(options, args);
+            long parseNanos = System.nanoTime() - start;
+            boolean served = cmd.hasOption(OPTION_MODE) || cmd.hasOption(OPTION_LIST);
+            // Paging waits on the terminal of the client and edits write its workflow files, so both are left to it
+            boolean other = cmd.hasOption(OPTION_HELP) || cmd.hasOption(OPTION_INIT)
+                    || cmd.hasOption(OPTION_DAEMON) || cmd.hasOption(OPTION_REBUILD_CACHE)
+                    || cmd.hasOption(OPTION_PAGE_SIZE) || cmd.hasOption(OPTION_ADD_MODE)
+                    || cmd.hasOption(OPTION_ADD_TOOL) || cmd.hasOption(OPTION_REMOVE_TOOL)
+                    || cmd.hasOption(OPTION_COMPLETION);
+            if (!served || other) {
+                return OptionalInt.empty();
+            }
+            return OptionalInt.of(processOptions(options, cmd, parseNanos));
+        } catch (ParseException e) {
+            return OptionalInt.empty();
+        }
+    }
+
+    /**
+     * Whether the arguments start the daemon itself, checked without commons-cli to keep the client path cheap.
+     */
+    private static boolean isDaemonRequest(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("-d") || arg.equals("--daemon")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) {
+        OptionalInt forwarded = isDaemonRequest(args) ? OptionalInt.empty() : DaemonClient.forward(args);
+        int status = forwarded.isPresent() ? forwarded.getAsInt() : execute(args);
+        if (status != 0) {
+            System.exit(status);
         }
     }
 
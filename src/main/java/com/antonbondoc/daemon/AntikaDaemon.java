@@ -0,0 +1,229 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.daemon;
+
+import jdk.net.ExtendedSocketOptions;
+import jdk.net.UnixDomainPrincipal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Arrays;
+import java.util.OptionalInt;
+import java.util.function.Function;
+
+/**
+ * A resident Antika process that serves client requests over a Unix domain socket.
+ * <p>
+ * Requests are served one at a time with the standard output and error of the request forwarded to the client, while
+ * the output of the threads not serving a request, such as the workflow watcher, stays with the daemon. The request
+ * handler decides which requests it serves; a rejected request is run by the client itself. So is a request from a
+ * client whose environment differs from the daemon's in a way that changes what is launched.
+ * <p>
+ * Requests may carry commands to run, such as a browser command, so only the user running the daemon can connect: the
+ * socket file is only accessible to its owner, and the user of each client is checked where the platform reports it.
+ */
+public class AntikaDaemon {
+
+    private final Path socketFile;
+    private final Function<String[], OptionalInt> handler;
+    private final RoutingOutputStream out = new RoutingOutputStream(System.out);
+    private final RoutingOutputStream err = new RoutingOutputStream(System.err);
+
+    public AntikaDaemon(Function<String[], OptionalInt> handler) {
+        this(DaemonProtocol.SOCKET_FILE, handler);
+    }
+
+    public AntikaDaemon(Path socketFile, Function<String[], OptionalInt> handler) {
+        this.socketFile = socketFile;
+        this.handler = handler;
+    }
+
+    /**
+     * Listen for client requests until the process is stopped.
+     */
+    public void run() {
+        if (DaemonClient.isRunning(socketFile)) {
+            System.err.println("An Antika daemon is already running for this directory");
+            System.exit(-1);
+        }
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            // A socket file left behind by a daemon that did not shut down cleanly
+            Files.deleteIfExists(socketFile);
+            server.bind(UnixDomainSocketAddress.of(socketFile));
+            Runtime.getRuntime().addShutdownHook(new Thread(this::deleteSocketFile));
+            UserPrincipal owner = restrictToOwner();
+            System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+            System.setErr(new PrintStream(err, true, StandardCharsets.UTF_8));
+            System.out.printf("Antika daemon listening on %s%n", socketFile);
+            while (true) {
+                try (SocketChannel client = server.accept()) {
+                    if (isOwner(client, owner)) {
+                        serve(client);
+                    } else {
+                        System.err.println("[WARN] Refused a client of another user");
+                    }
+                } catch (EOFException ignored) {
+                    // A liveness probe that connected without sending a request
+                } catch (IOException | RuntimeException e) {
+                    System.err.printf("[WARN] Unable to serve the client: %s%n", e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.print(e.getMessage());
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Make the socket file only accessible to the user running the daemon.
+     *
+     * @return the user running the daemon
+     */
+    private UserPrincipal restrictToOwner() throws IOException {
+        try {
+            Files.setPosixFilePermissions(socketFile, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException ignored) {
+            // Not a POSIX file system, the access to the socket is inherited from the directory
+        }
+        return Files.getOwner(socketFile);
+    }
+
+    /**
+     * Check the user of the client, which also covers a client that connected before the socket file was restricted.
+     */
+    private static boolean isOwner(SocketChannel client, UserPrincipal owner) throws IOException {
+        if (!client.supportedOptions().contains(ExtendedSocketOptions.SO_PEERCRED)) {
+            return true;
+        }
+        UnixDomainPrincipal peer = client.getOption(ExtendedSocketOptions.SO_PEERCRED);
+        return peer.user().equals(owner);
+    }
+
+    private void serve(SocketChannel client) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(client)));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client)));
+        String[] args = DaemonProtocol.readArguments(in);
+        if (!Arrays.equals(DaemonProtocol.readArguments(in), DaemonProtocol.environment())) {
+            // The tools would be looked up and opened in the environment of the daemon rather than the client's
+            out.writeByte(DaemonProtocol.FRAME_REJECTED);
+            out.flush();
+            return;
+        }
+
+        OutputStream clientOut = new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.FRAME_OUT);
+        OutputStream clientErr = new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.FRAME_ERR);
+        OptionalInt status;
+        this.out.route(clientOut);
+        this.err.route(clientErr);
+        try {
+            status = handler.apply(args);
+        } catch (RuntimeException e) {
+            // A failed request must not take the daemon down with it
+            System.err.printf("Antika daemon failed to serve the request: %s%n", e);
+            status = OptionalInt.of(-1);
+        } finally {
+            System.out.flush();
+            System.err.flush();
+            this.out.route(null);
+            this.err.route(null);
+        }
+
+        if (status.isPresent()) {
+            out.writeByte(DaemonProtocol.FRAME_EXIT);
+            out.writeInt(status.getAsInt());
+        } else {
+            out.writeByte(DaemonProtocol.FRAME_REJECTED);
+        }
+        out.flush();
+    }
+
+    private void deleteSocketFile() {
+        try {
+            Files.deleteIfExists(socketFile);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Writes to the client of the request served by the current thread, or by the thread that started it, and to the
+     * output of the daemon from any other thread.
+     */
+    private static final class RoutingOutputStream extends OutputStream {
+
+        private final OutputStream daemon;
+        private final InheritableThreadLocal<OutputStream> client = new InheritableThreadLocal<>();
+
+        private RoutingOutputStream(OutputStream daemon) {
+            this.daemon = daemon;
+        }
+
+        /**
+         * @param target the client output of the request served by the current thread, or {@code null} once served
+         */
+        private void route(OutputStream target) {
+            if (target == null) {
+                client.remove();
+            } else {
+                client.set(target);
+            }
+        }
+
+        private OutputStream target() {
+            OutputStream target = client.get();
+            return target != null ? target : daemon;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            target().write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target().flush();
+        }
+    }
+}
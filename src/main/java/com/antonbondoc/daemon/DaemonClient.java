@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.OptionalInt;
+
+/**
+ * Forwards a request to a running Antika daemon.
+ */
+public class DaemonClient {
+
+    private DaemonClient() {
+    }
+
+    /**
+     * Send the arguments to the daemon of the current directory and relay its output. The daemon leaves the request to
+     * the client when the client runs in another environment, such as with another {@code PATH} or display.
+     *
+     * @param args the arguments passed by the user
+     * @return the exit status of the request, or empty if there is no daemon or it did not serve the request
+     */
+    public static OptionalInt forward(String[] args) {
+        return forward(DaemonProtocol.SOCKET_FILE, args);
+    }
+
+    static OptionalInt forward(Path socketFile, String[] args) {
+        if (!Files.exists(socketFile)) {
+            return OptionalInt.empty();
+        }
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketFile))) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            DaemonProtocol.writeArguments(out, args);
+            DaemonProtocol.writeArguments(out, DaemonProtocol.environment());
+            while (true) {
+                byte type = in.readByte();
+                switch (type) {
+                    case DaemonProtocol.FRAME_OUT -> relay(in, System.out);
+                    case DaemonProtocol.FRAME_ERR -> relay(in, System.err);
+                    case DaemonProtocol.FRAME_EXIT -> {
+                        return OptionalInt.of(in.readInt());
+                    }
+                    case DaemonProtocol.FRAME_REJECTED -> {
+                        return OptionalInt.empty();
+                    }
+                    default -> throw new IOException("Unknown frame type " + type);
+                }
+            }
+        } catch (IOException e) {
+            // No daemon is listening, or it went away mid-request: run the request in-process instead
+            return OptionalInt.empty();
+        }
+    }
+
+    static boolean isRunning(Path socketFile) {
+        if (!Files.exists(socketFile)) {
+            return false;
+        }
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socketFile)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void relay(DataInputStream in, PrintStream target) throws IOException {
+        target.write(in.readNBytes(in.readInt()));
+        target.flush();
+    }
+}
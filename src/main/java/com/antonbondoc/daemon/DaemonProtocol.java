@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.daemon;
+
+import com.antonbondoc.handler.BrowserCommand;
+import com.antonbondoc.handler.FileHandler;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * The wire format between an Antika client and the Antika daemon.
+ * <p>
+ * A request is the argument count followed by each argument, then the same for the {@link #ENVIRONMENT} of the client
+ * as {@code name=value} entries. The response is a sequence of frames, each starting with
+ * a frame type: standard output and error frames carry a length-prefixed chunk of bytes, and the final frame is either
+ * the exit status of the request or a rejection telling the client to run the request itself.
+ */
+final class DaemonProtocol {
+
+    /**
+     * The daemon serves the workflow file of the directory it was started in, so its socket lives next to it.
+     */
+    static final Path SOCKET_FILE = Paths.get(FileHandler.CURRENT_DIRECTORY, ".antika.sock");
+
+    /**
+     * The environment variables that decide which tools a request launches and where they open: the lookup of
+     * applications, the browser, the configuration directory and the desktop session. The daemon launches the tools
+     * itself, so it only serves a client whose values match its own and leaves any other request to the client.
+     */
+    static final List<String> ENVIRONMENT = List.of("PATH", "PATHEXT", BrowserCommand.ENVIRONMENT_VARIABLE, "BROWSER",
+            "XDG_CONFIG_HOME", "DISPLAY", "WAYLAND_DISPLAY", "XDG_RUNTIME_DIR", "XDG_CURRENT_DESKTOP",
+            "DBUS_SESSION_BUS_ADDRESS");
+
+    static final byte FRAME_OUT = 1;
+    static final byte FRAME_ERR = 2;
+    static final byte FRAME_EXIT = 3;
+    static final byte FRAME_REJECTED = 4;
+
+    private DaemonProtocol() {
+    }
+
+    static void writeArguments(DataOutputStream out, String[] args) throws IOException {
+        out.writeInt(args.length);
+        for (String arg : args) {
+            byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.flush();
+    }
+
+    /**
+     * @return the {@link #ENVIRONMENT} of this process as {@code name=value} entries, leaving out the unset variables
+     */
+    static String[] environment() {
+        return ENVIRONMENT.stream()
+                .filter(name -> System.getenv(name) != null)
+                .map(name -> name + "=" + System.getenv(name))
+                .toArray(String[]::new);
+    }
+
+    static String[] readArguments(DataInputStream in) throws IOException {
+        String[] args = new String[length(in)];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = new String(in.readNBytes(length(in)), StandardCharsets.UTF_8);
+        }
+        return args;
+    }
+
+    private static int length(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Malformed request, negative length " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Forwards everything written to it as frames of the given type.
+     */
+    static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            synchronized (out) {
+                out.writeByte(type);
+                out.writeInt(length);
+                out.write(bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
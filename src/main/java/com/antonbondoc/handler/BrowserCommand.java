@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.handler;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * A browser command that opens many websites in a single process, such as {@code firefox --new-tab}.
+ *
+ * @param command   the browser executable followed by its arguments, the websites are appended after them
+ * @param batchSize the maximum number of websites per browser process, or {@code 0} to open all of them at once
+ */
+public record BrowserCommand(List<String> command, int batchSize) {
+
+    /**
+     * The environment variable read when no browser command is given on the command line.
+     */
+    public static final String ENVIRONMENT_VARIABLE = "ANTIKA_BROWSER";
+
+    public BrowserCommand {
+        if (command.isEmpty()) {
+            throw new IllegalArgumentException("The browser command must not be empty");
+        }
+        if (batchSize < 0) {
+            throw new IllegalArgumentException("The browser batch size must not be negative");
+        }
+        command = List.copyOf(command);
+    }
+
+    /**
+     * Split the command line on whitespace into the browser executable and its arguments.
+     *
+     * @param commandLine the browser command line
+     * @param batchSize   the maximum number of websites per browser process, or {@code 0} for no limit
+     * @return the browser command
+     */
+    public static BrowserCommand parse(String commandLine, int batchSize) {
+        List<String> command = Arrays.stream(commandLine.trim().split("\\s+"))
+                .filter(part -> !part.isEmpty())
+                .toList();
+        return new BrowserCommand(command, batchSize);
+    }
+
+    /**
+     * Split the websites into the chunks handed to a single browser process each.
+     *
+     * @param urls the websites to open
+     * @return the websites per browser process
+     */
+    public <T> List<List<T>> chunk(List<T> urls) {
+        if (batchSize == 0 || urls.size() <= batchSize) {
+            return List.of(urls);
+        }
+        int chunks = (urls.size() + batchSize - 1) / batchSize;
+        return IntStream.range(0, chunks)
+                .mapToObj(i -> urls.subList(i * batchSize, Math.min(urls.size(), (i + 1) * batchSize)))
+                .toList();
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.ToolDependency;
+import com.antonbondoc.model.Workflow;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * An immutable, compact list of workflows for very large workflow files.
+ * <p>
+ * Every distinct mode, application and website is stored once as UTF-8 bytes in a shared string table, and each
+ * workflow refers to its mode and tools by their index in the table. The tools of all workflows share a single index
+ * array. A {@link Workflow} is only created when one is asked for, as a fresh copy the caller is free to change.
+ */
+public final class CompactWorkflows extends AbstractList<Workflow> implements RandomAccess {
+
+    /**
+     * The index standing for a missing string, such as a workflow without a mode.
+     */
+    static final int NONE = -1;
+
+    // String i is text[offsets[i], offsets[i + 1])
+    private final byte[] text;
+    private final int[] offsets;
+    private final int[] modes;
+    // The apps of workflow i are tools[starts[2i], starts[2i + 1]), its websites tools[starts[2i + 1], starts[2i + 2])
+    private final int[] starts;
+    private final int[] tools;
+    // Bit 2i is set when workflow i has no apps list at all, bit 2i + 1 when it has no websites list
+    private final BitSet missing;
+    // Only the few workflows with dependencies have an entry
+    private final Map<Integer, List<ToolDependency>> dependencies;
+
+    CompactWorkflows(byte[] text, int[] offsets, int[] modes, int[] starts, int[] tools, BitSet missing,
+                     Map<Integer, List<ToolDependency>> dependencies) {
+        this.text = text;
+        this.offsets = offsets;
+        this.modes = modes;
+        this.starts = starts;
+        this.tools = tools;
+        this.missing = missing;
+        this.dependencies = dependencies;
+        validate();
+    }
+
+    /**
+     * @param workflows the workflows to store
+     * @return the compact copy of the workflows
+     */
+    public static CompactWorkflows of(List<Workflow> workflows) {
+        if (workflows instanceof CompactWorkflows compact) {
+            return compact;
+        }
+        Builder builder = new Builder(workflows.size());
+        workflows.forEach(builder::add);
+        return builder.build();
+    }
+
+    @Override
+    public Workflow get(int index) {
+        Workflow workflow = new Workflow(getMode(index), tools(index, 0), tools(index, 1));
+        List<ToolDependency> workflowDependencies = dependencies.get(index);
+        if (workflowDependencies != null) {
+            workflow.setDependencies(new ArrayList<>(workflowDependencies));
+        }
+        return workflow;
+    }
+
+    @Override
+    public int size() {
+        return modes.length;
+    }
+
+    /**
+     * Return the mode of a workflow without creating the workflow.
+     *
+     * @param index the position of the workflow
+     * @return the workflow mode, or {@code null} if it has none
+     */
+    public String getMode(int index) {
+        return string(modes[index]);
+    }
+
+    /**
+     * @return the number of distinct modes, applications and websites across all workflows
+     */
+    public int getStringCount() {
+        return offsets.length - 1;
+    }
+
+    byte[] text() {
+        return text;
+    }
+
+    int[] offsets() {
+        return offsets;
+    }
+
+    int[] modes() {
+        return modes;
+    }
+
+    int[] starts() {
+        return starts;
+    }
+
+    int[] tools() {
+        return tools;
+    }
+
+    BitSet missing() {
+        return missing;
+    }
+
+    Map<Integer, List<ToolDependency>> dependencies() {
+        return dependencies;
+    }
+
+    private String string(int index) {
+        return index == NONE ? null : new String(text, offsets[index], offsets[index + 1] - offsets[index],
+                StandardCharsets.UTF_8);
+    }
+
+    private List<String> tools(int index, int kind) {
+        int slot = index * 2 + kind;
+        if (missing.get(slot)) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(starts[slot + 1] - starts[slot]);
+        for (int i = starts[slot]; i < starts[slot + 1]; i++) {
+            values.add(string(tools[i]));
+        }
+        return values;
+    }
+
+    /**
+     * Reject tables whose indexes point outside of them, such as the ones read from a corrupt cache file.
+     */
+    private void validate() {
+        int strings = offsets.length - 1;
+        if (strings < 0 || offsets[0] != 0 || offsets[strings] != text.length) {
+            throw new IllegalArgumentException("Malformed string table");
+        }
+        for (int i = 0; i < strings; i++) {
+            if (offsets[i] > offsets[i + 1]) {
+                throw new IllegalArgumentException("Malformed string table");
+            }
+        }
+        if (starts.length != modes.length * 2 + 1 || starts[0] != 0 || starts[starts.length - 1] != tools.length) {
+            throw new IllegalArgumentException("Malformed tool table");
+        }
+        for (int i = 0; i < starts.length - 1; i++) {
+            if (starts[i] > starts[i + 1]) {
+                throw new IllegalArgumentException("Malformed tool table");
+            }
+        }
+        for (int mode : modes) {
+            if (mode < NONE || mode >= strings) {
+                throw new IllegalArgumentException("Mode index out of range: " + mode);
+            }
+        }
+        for (int tool : tools) {
+            if (tool < NONE || tool >= strings) {
+                throw new IllegalArgumentException("Tool index out of range: " + tool);
+            }
+        }
+    }
+
+    /**
+     * Collects workflows one at a time, so the workflows added do not have to be kept around.
+     */
+    static final class Builder {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final ByteArrayOutputStream text = new ByteArrayOutputStream();
+        private int[] offsets = new int[16];
+        private int strings;
+        private int[] modes;
+        private int[] starts;
+        private int[] tools = new int[16];
+        private int toolCount;
+        private final BitSet missing = new BitSet();
+        private final Map<Integer, List<ToolDependency>> dependencies = new HashMap<>();
+        private int count;
+
+        /**
+         * @param expectedSize the number of workflows to make room for up front, more may still be added
+         */
+        Builder(int expectedSize) {
+            this.modes = new int[expectedSize];
+            this.starts = new int[expectedSize * 2 + 1];
+        }
+
+        void add(Workflow workflow) {
+            if (count == modes.length) {
+                modes = Arrays.copyOf(modes, Math.max(16, count * 2));
+                starts = Arrays.copyOf(starts, modes.length * 2 + 1);
+            }
+            if (workflow.getDependencies() != null) {
+                dependencies.put(count, Collections.unmodifiableList(new ArrayList<>(workflow.getDependencies())));
+            }
+            modes[count] = intern(workflow.getMode());
+            addTools(count * 2, workflow.getApps());
+            addTools(count * 2 + 1, workflow.getWebsites());
+            count++;
+        }
+
+        private void addTools(int slot, List<String> values) {
+            if (values == null) {
+                missing.set(slot);
+            } else {
+                for (String value : values) {
+                    if (toolCount == tools.length) {
+                        tools = Arrays.copyOf(tools, toolCount * 2);
+                    }
+                    tools[toolCount++] = intern(value);
+                }
+            }
+            starts[slot + 1] = toolCount;
+        }
+
+        private int intern(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            return ids.computeIfAbsent(value, key -> {
+                if (strings + 1 == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                text.writeBytes(key.getBytes(StandardCharsets.UTF_8));
+                offsets[++strings] = text.size();
+                return strings - 1;
+            });
+        }
+
+        CompactWorkflows build() {
+            return new CompactWorkflows(text.toByteArray(), Arrays.copyOf(offsets, strings + 1),
+                    Arrays.copyOf(modes, count), Arrays.copyOf(starts, count * 2 + 1), Arrays.copyOf(tools, toolCount),
+                    missing, Map.copyOf(dependencies));
+        }
+    }
+}
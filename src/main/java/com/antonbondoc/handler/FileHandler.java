@@ -26,8 +26,13 @@ package com.antonbondoc.handler;
 
 import com.antonbondoc.model.Workflow;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Predicate;
 
 public interface FileHandler {
 
@@ -41,9 +46,22 @@ public interface FileHandler {
     /**
      * Read the workflow file and retrieves the set of available workflow modes
      *
-     * @return the set of workflow modes available
+     * @return the set of workflow modes available, in file order
      */
-    Set<String> getWorkflowModes();
+    default Set<String> getWorkflowModes() {
+        Set<String> modes = new LinkedHashSet<>();
+        forEachWorkflowMode(modes::add);
+        return modes;
+    }
+
+    /**
+     * Pass each workflow mode to the action in file order as soon as it is read, without loading the tools of the
+     * workflows. Memory use does not grow with the size of the workflow file.
+     *
+     * @param action called with each workflow mode, returning {@code false} to stop at that mode
+     * @return {@code false} if the action stopped the enumeration early
+     */
+    boolean forEachWorkflowMode(Predicate<String> action);
 
     /**
      * Return the workflow details given a workflow mode.
@@ -51,7 +69,66 @@ public interface FileHandler {
      * @param mode the selected workflow mode
      * @return the workflow containing the applications and websites to open.
      */
-    Workflow getWorkflow(String mode);
+    default Workflow getWorkflow(String mode) {
+        Optional<Workflow> workflow = findWorkflow(mode);
+        if (workflow.isEmpty()) {
+            System.err.printf("'%s' workflow does not exist", mode);
+            System.exit(-1);
+        }
+        return workflow.get();
+    }
+
+    /**
+     * Look up the workflow details given a workflow mode without exiting when it does not exist.
+     *
+     * @param mode the selected workflow mode
+     * @return the workflow containing the applications and websites to open, if any
+     */
+    Optional<Workflow> findWorkflow(String mode);
+
+    /**
+     * Read the workflow file and return the index over its workflow modes.
+     *
+     * @return the index used for prefix lookups and suggestions
+     */
+    WorkflowIndex getWorkflowIndex();
+
+    /**
+     * @return the workflow file read by this handler
+     */
+    Path getWorkflowFile();
+
+    /**
+     * Return the workflow file to edit a workflow in: the file the mode is read from, or the file with the highest
+     * precedence when no file has the mode.
+     *
+     * @param mode the workflow mode, ignoring case
+     * @return the workflow file to edit
+     */
+    default Path getWorkflowFile(String mode) {
+        return getWorkflowFile();
+    }
+
+    /**
+     * @return every workflow file the workflows of this handler may come from
+     */
+    default List<Path> getWorkflowFiles() {
+        return List.of(getWorkflowFile());
+    }
+
+    /**
+     * Read the workflow file and return the index over its workflow modes, without exiting when the file is missing or
+     * malformed.
+     *
+     * @return the index over the workflow modes
+     * @throws IOException if the workflow file cannot be read or is not a valid workflow file
+     */
+    WorkflowIndex readWorkflowIndex() throws IOException;
+
+    /**
+     * Discard the compiled workflow cache and rebuild it from the workflow file.
+     */
+    void rebuildCache();
 
     /**
      * Creates a workflow file with the extension of the chosen file handler.
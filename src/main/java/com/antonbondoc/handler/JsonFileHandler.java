@@ -24,60 +24,316 @@
 
 package com.antonbondoc.handler;
 
+import com.antonbondoc.model.ToolDependency;
 import com.antonbondoc.model.Workflow;
 import com.antonbondoc.model.WorkflowWrapper;
+import com.antonbondoc.telemetry.Telemetry;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.Strictness;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 public class JsonFileHandler implements FileHandler {
 
-    private final File WORKFLOW_FILE = Paths.get(CURRENT_DIRECTORY, "workflows.json").toFile();
+    private final File WORKFLOW_FILE;
 
-    private final Gson gson = new GsonBuilder()
-            .setPrettyPrinting()
-            .create();
+    private final WorkflowCache cache;
+
+    private static final Type DEPENDENCIES_TYPE = new TypeToken<List<ToolDependency>>() {
+    }.getType();
+
+    /**
+     * Created on first use, so requests answered from the compiled cache never load Gson.
+     */
+    private Gson gson;
+
+    private Gson gson() {
+        if (gson == null) {
+            gson = new GsonBuilder()
+                    .setPrettyPrinting()
+                    .create();
+        }
+        return gson;
+    }
+
+    public JsonFileHandler() {
+        this(Paths.get(CURRENT_DIRECTORY));
+    }
+
+    /**
+     * @param directory the directory containing the workflows.json file
+     */
+    public JsonFileHandler(Path directory) {
+        this.WORKFLOW_FILE = directory.resolve("workflows.json").toFile();
+        this.cache = new WorkflowCache(WORKFLOW_FILE);
+    }
 
     @Override
-    public Set<String> getWorkflowModes() {
-        List<Workflow> workflows = getWorkflowsFromFile();
-        return workflows.stream()
-                .map(Workflow::getMode)
-                .collect(Collectors.toSet());
+    public boolean forEachWorkflowMode(Predicate<String> action) {
+        try (JsonReader reader = new JsonReader(new FileReader(WORKFLOW_FILE))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"workflows".equals(reader.nextName()) || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    String mode = readMode(reader);
+                    if (mode != null && !action.test(mode)) {
+                        return false;
+                    }
+                }
+                reader.endArray();
+            }
+        } catch (IOException | IllegalStateException e) {
+            System.err.print(e.getMessage());
+            System.exit(-1);
+        }
+        return true;
+    }
+
+    /**
+     * Read a workflow object, skipping every value except its mode.
+     */
+    private String readMode(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String mode = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (mode == null && "mode".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                mode = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return mode;
     }
 
     @Override
-    public Workflow getWorkflow(String mode) {
-        Workflow workflow = null;
-        try {
-            List<Workflow> workflows = getWorkflowsFromFile();
-            workflow = workflows.stream()
-                    .filter(w -> w.getMode().equalsIgnoreCase(mode))
-                    .findFirst()
-                    .orElseThrow(() -> new IllegalArgumentException("Workflow does not exist"));
-        } catch (IllegalArgumentException ex) {
-            System.err.printf("'%s' workflow does not exist", mode);
+    public Optional<Workflow> findWorkflow(String mode) {
+        List<Workflow> workflows = Telemetry.time(Telemetry.PHASE_LOAD, cache::loadIfFresh);
+        if (workflows == null) {
+            // Streaming reads the file as part of the lookup, the cache is written once the workflow is on its way
+            Optional<Workflow> workflow = Telemetry.time(Telemetry.PHASE_LOOKUP, () -> findWorkflowInFile(mode));
+            cache.rebuildLater(this::readWorkflowFile);
+            return workflow;
+        }
+        return Telemetry.time(Telemetry.PHASE_LOOKUP, () -> cache.index(workflows).find(mode));
+    }
+
+    @Override
+    public WorkflowIndex getWorkflowIndex() {
+        List<Workflow> workflows = Telemetry.time(Telemetry.PHASE_LOAD, this::getWorkflowsFromFile);
+        return Telemetry.time(Telemetry.PHASE_LOOKUP, () -> cache.index(workflows));
+    }
+
+    /**
+     * Find the workflow by streaming the tokens of the workflow file, stopping as soon as the matching workflow is
+     * complete. Non-matching workflows are skipped without being materialized. Values the stream does not read the
+     * same way as the full parse, such as a number where a string is expected, are left to the full parse instead.
+     *
+     * @param mode the selected workflow mode
+     * @return the matching workflow, if any
+     */
+    Optional<Workflow> findWorkflowInFile(String mode) {
+        try (Reader reader = new FileReader(WORKFLOW_FILE)) {
+            Optional<Workflow> workflow = streamWorkflow(reader, mode);
+            workflow.ifPresent(w -> LaunchGraph.validate(List.of(w)));
+            return workflow;
+        } catch (StreamFallbackException e) {
+            return cache.index(getWorkflowsFromFile()).find(mode);
+        } catch (IOException | IllegalStateException | IllegalArgumentException | JsonParseException e) {
+            System.err.print(e.getMessage());
             System.exit(-1);
         }
+        return Optional.empty();
+    }
+
+    /**
+     * Stream the tokens of a workflow file up to the workflow with the given mode, ignoring case.
+     * <p>
+     * Only the part of the file up to the match is read, so a problem further down the file is only reported by the
+     * full parse.
+     *
+     * @param in   the content of a workflow file
+     * @param mode the selected workflow mode
+     * @return the matching workflow, if any
+     * @throws StreamFallbackException if the content read so far needs the full parse, such as a workflow extending
+     *                                 others that may be anywhere in the file
+     */
+    Optional<Workflow> streamWorkflow(Reader in, String mode) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        // The full parse is lenient as well
+        reader.setStrictness(Strictness.LENIENT);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new StreamFallbackException();
+        }
+        String key = WorkflowIndex.fold(mode);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            // Unknown properties are ignored by the full parse as well
+            if (!"workflows".equals(reader.nextName()) || reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                throw new StreamFallbackException();
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                Workflow workflow = readWorkflowIfMatches(reader, key);
+                if (workflow != null && workflow.getExtends() != null && !workflow.getExtends().isEmpty()) {
+                    // The extended workflows may be anywhere in the file
+                    throw new StreamFallbackException();
+                }
+                if (workflow != null) {
+                    return Optional.of(workflow);
+                }
+            }
+            reader.endArray();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Read a workflow object, only collecting its tools while it may still match the mode.
+     */
+    private Workflow readWorkflowIfMatches(JsonReader reader, String key) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new StreamFallbackException();
+        }
+        String entryMode = null;
+        List<String> apps = null;
+        List<String> websites = null;
+        List<ToolDependency> dependencies = null;
+        List<String> extendedModes = null;
+        boolean matches = true;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (!matches) {
+                reader.skipValue();
+            } else if ("mode".equals(name)) {
+                entryMode = readString(reader);
+                matches = entryMode != null && WorkflowIndex.fold(entryMode).equals(key);
+            } else if ("apps".equals(name)) {
+                apps = readStrings(reader);
+            } else if ("websites".equals(name)) {
+                websites = readStrings(reader);
+            } else if ("dependencies".equals(name)) {
+                dependencies = gson().fromJson(reader, DEPENDENCIES_TYPE);
+            } else if ("extends".equals(name)) {
+                extendedModes = readStrings(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (!matches || entryMode == null) {
+            return null;
+        }
+        Workflow workflow = new Workflow(entryMode, apps, websites);
+        workflow.setDependencies(dependencies);
+        workflow.setExtends(extendedModes);
         return workflow;
     }
 
+    /**
+     * Read a string or {@code null}, leaving the numbers and booleans the full parse turns into strings to it.
+     */
+    private static String readString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (reader.peek() != JsonToken.STRING) {
+            throw new StreamFallbackException();
+        }
+        return reader.nextString();
+    }
+
+    private List<String> readStrings(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new StreamFallbackException();
+        }
+        List<String> values = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String value = readString(reader);
+            if (value == null) {
+                throw new StreamFallbackException();
+            }
+            values.add(value);
+        }
+        reader.endArray();
+        return values;
+    }
+
+    @Override
+    public Path getWorkflowFile() {
+        return WORKFLOW_FILE.toPath();
+    }
+
+    @Override
+    public WorkflowIndex readWorkflowIndex() throws IOException {
+        try {
+            return cache.index(cache.load(() -> {
+                try {
+                    return readWorkflowFile();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void rebuildCache() {
+        cache.rebuild(this::parseWorkflowFile);
+    }
+
     private List<Workflow> getWorkflowsFromFile() {
+        return cache.load(this::parseWorkflowFile);
+    }
+
+    List<Workflow> parseWorkflowFile() {
         List<Workflow> workflows = new ArrayList<>();
-        try (Reader reader = new FileReader(WORKFLOW_FILE)) {
-            WorkflowWrapper wrapper = gson.fromJson(reader, WorkflowWrapper.class);
-            workflows = wrapper.getWorkflows();
+        try {
+            workflows = readWorkflowFile();
         } catch (IOException e) {
             System.err.print(e.getMessage());
             System.exit(-1);
@@ -85,6 +341,25 @@ public class JsonFileHandler implements FileHandler {
         return workflows;
     }
 
+    /**
+     * Parse and validate the workflow file, reporting a missing or malformed file to the caller.
+     */
+    List<Workflow> readWorkflowFile() throws IOException {
+        try (Reader reader = new FileReader(WORKFLOW_FILE)) {
+            WorkflowWrapper wrapper = gson().fromJson(reader, WorkflowWrapper.class);
+            List<Workflow> workflows = wrapper != null && wrapper.getWorkflows() != null
+                    ? wrapper.getWorkflows()
+                    : new ArrayList<>();
+            // An empty entry, such as a lone dash in YAML, is not a workflow
+            workflows.removeIf(Objects::isNull);
+            workflows = WorkflowComposer.resolve(workflows);
+            LaunchGraph.validate(workflows);
+            return workflows;
+        } catch (JsonParseException | IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
     @Override
     public void createWorkflowFile() {
         if (WORKFLOW_FILE.exists()) {
@@ -93,7 +368,7 @@ public class JsonFileHandler implements FileHandler {
         }
         try (Writer writer = new FileWriter(WORKFLOW_FILE)) {
             final WorkflowWrapper WRAPPER = new WorkflowWrapper(List.of(EXAMPLE));
-            String json = gson.toJson(WRAPPER);
+            String json = gson().toJson(WRAPPER);
             writer.write(json);
             System.out.print("Created workflows.json file");
         } catch (IOException e) {
@@ -0,0 +1,326 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.launcher.Executables;
+import com.antonbondoc.model.LaunchResult;
+import com.antonbondoc.model.Readiness;
+import com.antonbondoc.model.ToolDependency;
+import com.antonbondoc.model.Workflow;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+
+/**
+ * The tools of a workflow as a dependency graph, built from the {@code dependencies} of the workflow.
+ * <p>
+ * A compiled graph is the launch plan of the workflow: every application is resolved to its executable and every
+ * website is parsed into a normalized URI up front, so launching only runs the resolved targets and a problem with a
+ * tool is known before anything is launched. A workflow is compiled once for as long as it stays loaded.
+ */
+public class LaunchGraph {
+
+    private static final Map<Workflow, LaunchGraph> COMPILED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * A single tool of the workflow with the tools it has to wait for.
+     */
+    public static final class Node {
+
+        private final LaunchResult.Type type;
+        private final String tool;
+        private final List<Node> dependencies = new ArrayList<>();
+        private Readiness readiness;
+        private boolean hasDependents;
+        private String target;
+        private String problem;
+
+        private Node(LaunchResult.Type type, String tool) {
+            this.type = type;
+            this.tool = tool;
+            this.target = tool;
+        }
+
+        public LaunchResult.Type getType() {
+            return type;
+        }
+
+        public String getTool() {
+            return tool;
+        }
+
+        public List<Node> getDependencies() {
+            return dependencies;
+        }
+
+        public Readiness getReadiness() {
+            return readiness;
+        }
+
+        /**
+         * @return the executable or normalized URI the tool is launched with, or the tool as written if the graph is
+         * not compiled or the tool has a problem
+         */
+        public String getTarget() {
+            return target;
+        }
+
+        /**
+         * @return why the tool cannot be launched, or {@code null} if it can be
+         */
+        public String getProblem() {
+            return problem;
+        }
+
+        /**
+         * @return whether another tool waits for this one, which is the only case its readiness probe has to run
+         */
+        public boolean hasDependents() {
+            return hasDependents;
+        }
+    }
+
+    private final List<Node> nodes;
+
+    private LaunchGraph(List<Node> nodes) {
+        this.nodes = nodes;
+    }
+
+    /**
+     * @return the tools of the workflow, applications first, in workflow order
+     */
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Build the dependency graph of the workflow.
+     *
+     * @param workflow the workflow to build the graph of
+     * @return the dependency graph of the workflow
+     * @throws IllegalArgumentException if a dependency refers to an unknown tool, has a readiness probe that can never
+     * pass or the dependencies form a cycle
+     */
+    public static LaunchGraph of(Workflow workflow) {
+        return build(workflow, false);
+    }
+
+    /**
+     * Build the compiled dependency graph of the workflow, reusing the graph compiled earlier for the same workflow.
+     *
+     * @param workflow the workflow to build the graph of
+     * @return the dependency graph of the workflow with every tool resolved
+     * @throws IllegalArgumentException if a dependency refers to an unknown tool, has a readiness probe that can never
+     * pass or the dependencies form a cycle
+     */
+    public static LaunchGraph compile(Workflow workflow) {
+        LaunchGraph graph = COMPILED.get(workflow);
+        if (graph == null) {
+            graph = build(workflow, true);
+            COMPILED.put(workflow, graph);
+        }
+        return graph;
+    }
+
+    private static LaunchGraph build(Workflow workflow, boolean compile) {
+        Map<String, Node> byTool = new LinkedHashMap<>();
+        addNodes(byTool, LaunchResult.Type.APP, workflow.getApps());
+        addNodes(byTool, LaunchResult.Type.WEBSITE, workflow.getWebsites());
+
+        List<ToolDependency> dependencies = workflow.getDependencies();
+        if (dependencies != null) {
+            for (ToolDependency dependency : dependencies) {
+                Node node = lookup(byTool, workflow, dependency.getTool());
+                checkReadiness(workflow, dependency);
+                node.readiness = dependency.getReadiness();
+                if (dependency.getDependsOn() == null) {
+                    continue;
+                }
+                for (String tool : dependency.getDependsOn()) {
+                    Node required = lookup(byTool, workflow, tool);
+                    required.hasDependents = true;
+                    node.dependencies.add(required);
+                }
+            }
+        }
+        List<Node> nodes = new ArrayList<>(byTool.values());
+        checkAcyclic(workflow, nodes);
+        if (compile) {
+            nodes.forEach(LaunchGraph::resolve);
+        }
+        return new LaunchGraph(Collections.unmodifiableList(nodes));
+    }
+
+    /**
+     * Check that the dependencies of every workflow resolve, have readiness probes that can pass and are free of
+     * cycles.
+     *
+     * @param workflows the loaded workflows
+     * @throws IllegalArgumentException listing every workflow with invalid dependencies, one per line
+     */
+    public static void validate(List<Workflow> workflows) {
+        List<String> errors = new ArrayList<>();
+        for (Workflow workflow : workflows) {
+            if (workflow != null && workflow.getDependencies() != null) {
+                try {
+                    of(workflow);
+                } catch (IllegalArgumentException e) {
+                    errors.add(e.getMessage());
+                }
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join(System.lineSeparator(), errors));
+        }
+    }
+
+    /**
+     * Resolve the application to its executable, or parse the website into a normalized URI.
+     */
+    private static void resolve(Node node) {
+        if (node.type == LaunchResult.Type.APP) {
+            Optional<Path> executable = Executables.find(node.tool);
+            if (executable.isPresent()) {
+                node.target = executable.get().toString();
+            } else {
+                boolean bareName = !node.tool.contains("/") && !node.tool.contains(File.separator);
+                node.problem = bareName ? "not found on the PATH" : "not an executable file";
+            }
+            return;
+        }
+        try {
+            URI uri = new URI(node.tool.strip());
+            if (uri.getScheme() == null) {
+                // A website written without its scheme, such as www.example.com
+                uri = new URI("https://" + node.tool.strip());
+            }
+            node.target = uri.normalize().toString();
+        } catch (URISyntaxException e) {
+            node.problem = "invalid URI syntax: " + e.getReason();
+        }
+    }
+
+    private static void addNodes(Map<String, Node> byTool, LaunchResult.Type type, List<String> tools) {
+        if (tools == null) {
+            return;
+        }
+        for (String tool : tools) {
+            byTool.putIfAbsent(tool, new Node(type, tool));
+        }
+    }
+
+    private static Node lookup(Map<String, Node> byTool, Workflow workflow, String tool) {
+        Node node = byTool.get(tool);
+        if (node == null) {
+            throw new IllegalArgumentException(String.format(
+                    "'%s' workflow has a dependency on '%s' which is not one of its apps or websites",
+                    workflow.getMode(), tool));
+        }
+        return node;
+    }
+
+    /**
+     * Reject a probe waiting for the tool to stay alive longer than it waits for the probe to pass, as it always times
+     * out.
+     */
+    private static void checkReadiness(Workflow workflow, ToolDependency dependency) {
+        Readiness readiness = dependency.getReadiness();
+        if (readiness == null || readiness.getAliveMillis() == null) {
+            return;
+        }
+        long timeout = readiness.getTimeoutMillis() != null
+                ? readiness.getTimeoutMillis()
+                : ReadinessProbe.DEFAULT_TIMEOUT_MILLIS;
+        if (readiness.getAliveMillis() > timeout) {
+            throw new IllegalArgumentException(String.format(
+                    "'%s' workflow waits %d ms for '%s' to stay alive, longer than its readiness timeout of %d ms",
+                    workflow.getMode(), readiness.getAliveMillis(), dependency.getTool(), timeout));
+        }
+    }
+
+    /**
+     * Depth-first search over the dependencies, reporting the first cycle found.
+     */
+    private static void checkAcyclic(Workflow workflow, List<Node> nodes) {
+        Map<Node, Boolean> finished = new HashMap<>();
+        for (Node root : nodes) {
+            if (finished.containsKey(root)) {
+                continue;
+            }
+            Deque<Node> path = new ArrayDeque<>();
+            Deque<Integer> nextChild = new ArrayDeque<>();
+            path.push(root);
+            nextChild.push(0);
+            finished.put(root, false);
+            while (!path.isEmpty()) {
+                Node node = path.peek();
+                int idx = nextChild.pop();
+                if (idx == node.dependencies.size()) {
+                    finished.put(node, true);
+                    path.pop();
+                    continue;
+                }
+                nextChild.push(idx + 1);
+                Node child = node.dependencies.get(idx);
+                Boolean state = finished.get(child);
+                if (state == null) {
+                    finished.put(child, false);
+                    path.push(child);
+                    nextChild.push(0);
+                } else if (!state) {
+                    throw new IllegalArgumentException(String.format(
+                            "'%s' workflow has a dependency cycle: %s", workflow.getMode(), describeCycle(path, child)));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the cycle as a chain of "depends on" arrows, starting and ending with the given tool
+     */
+    private static String describeCycle(Deque<Node> path, Node start) {
+        List<String> cycle = new ArrayList<>();
+        for (Node node : path) {
+            cycle.addFirst(node.tool);
+            if (node == start) {
+                break;
+            }
+        }
+        cycle.add(start.tool);
+        return String.join(" -> ", cycle);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.LaunchResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The observed launch durations of each tool, kept in an append-only file.
+ * <p>
+ * Every successful launch appends a {@code nanos<TAB>tool} line. The estimate of a tool is the exponentially weighted
+ * moving average of its lines, so recent launches count the most. Once the file holds many more lines than tools it
+ * is compacted into a single line per tool holding the current estimate.
+ */
+public class LaunchHistory {
+
+    public static final Path DEFAULT_FILE = Paths.get(System.getProperty("user.home"), ".antika", "launch-history");
+
+    /**
+     * The weight of the latest launch in the moving average.
+     */
+    private static final double WEIGHT = 0.3;
+
+    /**
+     * The number of lines the file may grow to per tool before it is compacted.
+     */
+    private static final int LINES_PER_TOOL = 8;
+    private static final int MIN_LINES_BEFORE_COMPACTION = 256;
+
+    private final Path file;
+
+    private Map<String, Long> estimates;
+    private int lines;
+
+    public LaunchHistory() {
+        this(DEFAULT_FILE);
+    }
+
+    /**
+     * @param file the history file, created on the first recorded launch
+     */
+    public LaunchHistory(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @param tool the application path or website URL as written in the workflow file
+     * @return the expected launch duration of the tool, if it was launched before
+     */
+    public synchronized Optional<Duration> estimate(String tool) {
+        Long nanos = estimates().get(tool);
+        return nanos != null ? Optional.of(Duration.ofNanos(nanos)) : Optional.empty();
+    }
+
+    /**
+     * Append the durations of the tools that were actually launched, compacting the file when it grew too long.
+     *
+     * @param results the outcome of each launch
+     */
+    public synchronized void record(List<LaunchResult> results) {
+        StringBuilder appended = new StringBuilder();
+        for (LaunchResult result : results) {
+            if (!result.success() || result.skipped() || result.tool().indexOf('\n') >= 0) {
+                continue;
+            }
+            long nanos = result.duration().toNanos();
+            update(result.tool(), nanos);
+            appended.append(nanos).append('\t').append(result.tool()).append('\n');
+            lines++;
+        }
+        if (appended.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            if (lines > Math.max(MIN_LINES_BEFORE_COMPACTION, estimates.size() * LINES_PER_TOOL)) {
+                compact();
+            } else {
+                Files.writeString(file, appended, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            System.out.printf("[WARN] Unable to write the launch history: %s%n", e.getMessage());
+        }
+    }
+
+    private Map<String, Long> estimates() {
+        if (estimates != null) {
+            return estimates;
+        }
+        estimates = new HashMap<>();
+        lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) {
+                    continue;
+                }
+                try {
+                    update(line.substring(tab + 1), Long.parseLong(line, 0, tab, 10));
+                    lines++;
+                } catch (NumberFormatException ignored) {
+                    // A line torn by a concurrent write, the next launch of the tool makes up for it
+                }
+            }
+        } catch (NoSuchFileException ignored) {
+            // No launch recorded yet
+        } catch (IOException e) {
+            System.out.printf("[WARN] Unable to read the launch history: %s%n", e.getMessage());
+        }
+        return estimates;
+    }
+
+    private void update(String tool, long nanos) {
+        estimates().merge(tool, nanos, (previous, latest) -> Math.round(previous + WEIGHT * (latest - previous)));
+    }
+
+    /**
+     * Rewrite the file with a single line per tool holding its current estimate.
+     */
+    private void compact() throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Long> entry : estimates.entrySet()) {
+                    writer.append(String.valueOf(entry.getValue())).append('\t').append(entry.getKey()).append('\n');
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lines = estimates.size();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.handler;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * The order the tools of a workflow are launched in, slowest first.
+ * <p>
+ * Each tool is ranked by its expected launch duration plus the longest chain of tools waiting on it, so the tools that
+ * hold up the rest of the workflow start first (longest processing time first, extended to the dependencies). A tool
+ * without history is expected to take as long as the average known tool.
+ */
+public class LaunchPlan {
+
+    /**
+     * A tool of the plan with the launch duration it is expected to take.
+     *
+     * @param node     the tool to launch
+     * @param estimate the expected launch duration, or empty if the tool was never launched before
+     */
+    public record Step(LaunchGraph.Node node, Optional<Duration> estimate) {
+    }
+
+    private final List<Step> steps;
+    private final Duration makespan;
+
+    private LaunchPlan(List<Step> steps, Duration makespan) {
+        this.steps = steps;
+        this.makespan = makespan;
+    }
+
+    /**
+     * @return the tools in the order they are launched
+     */
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return the expected time until every tool is launched
+     */
+    public Duration getMakespan() {
+        return makespan;
+    }
+
+    /**
+     * Order the tools of the graph by their launch history.
+     *
+     * @param graph       the tools of the workflow
+     * @param history     the observed launch durations, or {@code null} to keep the workflow order
+     * @param parallelism the maximum number of launches in flight at once
+     * @return the launch plan of the workflow
+     */
+    public static LaunchPlan of(LaunchGraph graph, LaunchHistory history, int parallelism) {
+        List<LaunchGraph.Node> nodes = graph.getNodes();
+        Map<LaunchGraph.Node, Optional<Duration>> estimates = new HashMap<>();
+        long known = 0;
+        long knownNanos = 0;
+        for (LaunchGraph.Node node : nodes) {
+            Optional<Duration> estimate = history != null ? history.estimate(node.getTool()) : Optional.empty();
+            estimates.put(node, estimate);
+            if (estimate.isPresent()) {
+                known++;
+                knownNanos += estimate.get().toNanos();
+            }
+        }
+        long fallback = known > 0 ? knownNanos / known : 0;
+        Map<LaunchGraph.Node, Long> cost = new HashMap<>();
+        for (LaunchGraph.Node node : nodes) {
+            cost.put(node, estimates.get(node).map(Duration::toNanos).orElse(fallback));
+        }
+
+        List<LaunchGraph.Node> topological = topologicalOrder(nodes);
+        Map<LaunchGraph.Node, Integer> depth = new HashMap<>();
+        for (LaunchGraph.Node node : topological) {
+            int level = 0;
+            for (LaunchGraph.Node dependency : node.getDependencies()) {
+                level = Math.max(level, depth.get(dependency) + 1);
+            }
+            depth.put(node, level);
+        }
+        Map<LaunchGraph.Node, Long> rank = new HashMap<>();
+        for (LaunchGraph.Node node : topological.reversed()) {
+            rank.merge(node, cost.get(node), Long::sum);
+            for (LaunchGraph.Node dependency : node.getDependencies()) {
+                rank.merge(dependency, rank.get(node), Math::max);
+            }
+        }
+
+        // A dependency always ranks at least as high as its dependents, and the depth breaks the ties between them
+        List<LaunchGraph.Node> order = new ArrayList<>(nodes);
+        order.sort(Comparator.<LaunchGraph.Node>comparingLong(rank::get).reversed()
+                .thenComparingInt(depth::get));
+
+        List<Step> steps = new ArrayList<>(order.size());
+        for (LaunchGraph.Node node : order) {
+            steps.add(new Step(node, estimates.get(node)));
+        }
+        return new LaunchPlan(steps, simulate(order, cost, parallelism));
+    }
+
+    /**
+     * Replay the launches in plan order on the given number of launch slots.
+     */
+    private static Duration simulate(List<LaunchGraph.Node> order, Map<LaunchGraph.Node, Long> cost, int parallelism) {
+        PriorityQueue<Long> slots = new PriorityQueue<>();
+        for (int i = 0; i < Math.min(parallelism, order.size()); i++) {
+            slots.add(0L);
+        }
+        Map<LaunchGraph.Node, Long> finish = new HashMap<>();
+        long makespan = 0;
+        for (LaunchGraph.Node node : order) {
+            long start = slots.poll();
+            for (LaunchGraph.Node dependency : node.getDependencies()) {
+                start = Math.max(start, finish.get(dependency));
+            }
+            long end = start + cost.get(node);
+            finish.put(node, end);
+            slots.add(end);
+            makespan = Math.max(makespan, end);
+        }
+        return Duration.ofNanos(makespan);
+    }
+
+    /**
+     * Kahn's algorithm over the dependencies, listing every tool after the tools it depends on.
+     */
+    private static List<LaunchGraph.Node> topologicalOrder(List<LaunchGraph.Node> nodes) {
+        Map<LaunchGraph.Node, Integer> pending = new HashMap<>();
+        Map<LaunchGraph.Node, List<LaunchGraph.Node>> dependents = new HashMap<>();
+        Deque<LaunchGraph.Node> ready = new ArrayDeque<>();
+        for (LaunchGraph.Node node : nodes) {
+            pending.put(node, node.getDependencies().size());
+            for (LaunchGraph.Node dependency : node.getDependencies()) {
+                dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(node);
+            }
+            if (node.getDependencies().isEmpty()) {
+                ready.add(node);
+            }
+        }
+        List<LaunchGraph.Node> order = new ArrayList<>(nodes.size());
+        while (!ready.isEmpty()) {
+            LaunchGraph.Node node = ready.poll();
+            order.add(node);
+            for (LaunchGraph.Node dependent : dependents.getOrDefault(node, List.of())) {
+                if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        return order;
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.Workflow;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A file handler merging the workflow files of several configuration directories.
+ * <p>
+ * The directories are, from the lowest to the highest precedence: the system directory ({@code /etc/antika}, or
+ * {@code %ProgramData%\antika} on Windows), {@code $XDG_CONFIG_HOME/antika}, {@code ~/.antika} and the current
+ * directory. A mode defined in more than one directory is taken from the one with the highest precedence. Each
+ * directory holds either a {@code workflows.yml} or a {@code workflows.json} file, and a workflow only extends
+ * workflows of its own file.
+ * <p>
+ * Every file keeps its own compiled cache on disk, which a lookup reads before streaming the file and builds in the
+ * background after streaming it, so a cold lookup only streams the files whose cache is missing or stale. The merged
+ * workflows are kept in memory for as long as the size and modification time of every file stay the same, so a
+ * long-lived process only stats the files on a lookup.
+ */
+public class LayeredFileHandler implements FileHandler {
+
+    /**
+     * The handlers of each directory, from the highest to the lowest precedence.
+     */
+    private final List<FileHandler> layers;
+    private final FileHandler project;
+
+    private volatile Merged merged;
+
+    public LayeredFileHandler() {
+        this(defaultDirectories());
+    }
+
+    /**
+     * @param directories the configuration directories, from the lowest to the highest precedence. The workflow file
+     *                    of the last directory is the one created by {@link #createWorkflowFile()}.
+     */
+    public LayeredFileHandler(List<Path> directories) {
+        Set<Path> distinct = new LinkedHashSet<>();
+        for (Path directory : directories.reversed()) {
+            distinct.add(directory.toAbsolutePath().normalize());
+        }
+        this.layers = distinct.stream()
+                .map(LayeredFileHandler::handlerOf)
+                .toList();
+        this.project = layers.getFirst();
+    }
+
+    /**
+     * @return the configuration directories to look for workflow files in, from the lowest to the highest precedence
+     */
+    public static List<Path> defaultDirectories() {
+        List<Path> directories = new ArrayList<>();
+        boolean windows = System.getProperty("os.name", "").startsWith("Windows");
+        String programData = System.getenv("ProgramData");
+        if (!windows) {
+            directories.add(Paths.get("/etc", "antika"));
+        } else if (programData != null) {
+            directories.add(Paths.get(programData, "antika"));
+        }
+        Path home = Paths.get(System.getProperty("user.home"));
+        String xdgConfigHome = System.getenv("XDG_CONFIG_HOME");
+        directories.add(xdgConfigHome != null && !xdgConfigHome.isBlank()
+                ? Paths.get(xdgConfigHome, "antika")
+                : home.resolve(".config").resolve("antika"));
+        directories.add(home.resolve(".antika"));
+        directories.add(Paths.get(CURRENT_DIRECTORY));
+        return directories;
+    }
+
+    private static FileHandler handlerOf(Path directory) {
+        if (!Files.exists(directory.resolve("workflows.yml")) && Files.exists(directory.resolve("workflows.json"))) {
+            return new JsonFileHandler(directory);
+        }
+        return new YamlFileHandler(directory);
+    }
+
+    /**
+     * Stream the modes of each layer in turn, leaving out the modes overridden by a layer listed before. Only the modes
+     * of the lower layers are remembered, so the project workflow file is streamed in constant memory.
+     */
+    @Override
+    public boolean forEachWorkflowMode(Predicate<String> action) {
+        List<Stamp> stamps = stamps();
+        List<FileHandler> existing = new ArrayList<>(layers.size());
+        for (int i = 0; i < layers.size(); i++) {
+            if (stamps.get(i).exists()) {
+                existing.add(layers.get(i));
+            }
+        }
+        if (existing.size() <= 1) {
+            // Let the project directory report the missing workflow file
+            return (existing.isEmpty() ? project : existing.getFirst()).forEachWorkflowMode(action);
+        }
+        Set<String> lowerModes = new HashSet<>();
+        for (FileHandler layer : existing.subList(1, existing.size())) {
+            layer.forEachWorkflowMode(mode -> {
+                lowerModes.add(WorkflowIndex.fold(mode));
+                return true;
+            });
+        }
+        Set<String> listed = new HashSet<>();
+        for (FileHandler layer : existing) {
+            boolean highest = layer == existing.getFirst();
+            boolean completed = layer.forEachWorkflowMode(mode -> {
+                String key = WorkflowIndex.fold(mode);
+                if (!highest && listed.contains(key)) {
+                    return true;
+                }
+                if (lowerModes.contains(key)) {
+                    listed.add(key);
+                }
+                return action.test(mode);
+            });
+            if (!completed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<Workflow> findWorkflow(String mode) {
+        List<Stamp> stamps = stamps();
+        Merged current = merged;
+        if (current != null && current.stamps().equals(stamps)) {
+            return current.index().find(mode);
+        }
+        for (int i = 0; i < layers.size(); i++) {
+            if (stamps.get(i).exists()) {
+                Optional<Workflow> workflow = layers.get(i).findWorkflow(mode);
+                if (workflow.isPresent()) {
+                    return workflow;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public WorkflowIndex getWorkflowIndex() {
+        List<Stamp> stamps = stamps();
+        Merged current = merged;
+        if (current != null && current.stamps().equals(stamps)) {
+            return current.index();
+        }
+        if (stamps.stream().noneMatch(Stamp::exists)) {
+            // Let the project directory report the missing workflow file
+            return project.getWorkflowIndex();
+        }
+        List<WorkflowIndex> indexes = new ArrayList<>(layers.size());
+        for (int i = 0; i < layers.size(); i++) {
+            indexes.add(stamps.get(i).exists() ? layers.get(i).getWorkflowIndex() : null);
+        }
+        return merge(stamps, indexes);
+    }
+
+    @Override
+    public Path getWorkflowFile() {
+        return project.getWorkflowFile();
+    }
+
+    /**
+     * Return the workflow file of the layer with the highest precedence defining the mode, so an edit changes the
+     * workflow that is launched. A new mode goes to the existing workflow file with the highest precedence.
+     */
+    @Override
+    public Path getWorkflowFile(String mode) {
+        FileHandler highest = null;
+        for (FileHandler layer : layers) {
+            if (!Files.exists(layer.getWorkflowFile())) {
+                continue;
+            }
+            if (highest == null) {
+                highest = layer;
+            }
+            if (!layer.forEachWorkflowMode(layerMode -> !layerMode.equalsIgnoreCase(mode))) {
+                return layer.getWorkflowFile();
+            }
+        }
+        return (highest != null ? highest : project).getWorkflowFile();
+    }
+
+    @Override
+    public List<Path> getWorkflowFiles() {
+        return layers.stream()
+                .map(FileHandler::getWorkflowFile)
+                .toList();
+    }
+
+    @Override
+    public WorkflowIndex readWorkflowIndex() throws IOException {
+        List<Stamp> stamps = stamps();
+        Merged current = merged;
+        if (current != null && current.stamps().equals(stamps)) {
+            return current.index();
+        }
+        if (stamps.stream().noneMatch(Stamp::exists)) {
+            return project.readWorkflowIndex();
+        }
+        List<WorkflowIndex> indexes = new ArrayList<>(layers.size());
+        for (int i = 0; i < layers.size(); i++) {
+            indexes.add(stamps.get(i).exists() ? layers.get(i).readWorkflowIndex() : null);
+        }
+        return merge(stamps, indexes);
+    }
+
+    @Override
+    public void rebuildCache() {
+        for (FileHandler layer : layers) {
+            if (Files.exists(layer.getWorkflowFile())) {
+                layer.rebuildCache();
+            }
+        }
+        merged = null;
+    }
+
+    @Override
+    public void createWorkflowFile() {
+        project.createWorkflowFile();
+    }
+
+    /**
+     * Merge the workflows of each layer, keeping a mode only from the layer with the highest precedence.
+     */
+    private WorkflowIndex merge(List<Stamp> stamps, List<WorkflowIndex> indexes) {
+        List<WorkflowIndex> existing = indexes.stream().filter(Objects::nonNull).toList();
+        if (existing.size() == 1) {
+            // Nothing to merge, so the index of the only layer is shared rather than copied
+            merged = new Merged(stamps, existing.getFirst());
+            return existing.getFirst();
+        }
+        CompactWorkflows.Builder workflows = new CompactWorkflows.Builder(0);
+        Set<String> modes = new HashSet<>();
+        for (WorkflowIndex index : existing) {
+            Set<String> layerModes = new HashSet<>();
+            for (int i = 0; i < index.getWorkflows().size(); i++) {
+                // Duplicates within a layer are kept so --check can report them, the index still picks the first
+                if (index.getMode(i) == null) {
+                    continue;
+                }
+                String mode = WorkflowIndex.fold(index.getMode(i));
+                if (!modes.contains(mode)) {
+                    layerModes.add(mode);
+                    workflows.add(index.getWorkflows().get(i));
+                }
+            }
+            modes.addAll(layerModes);
+        }
+        WorkflowIndex index = new WorkflowIndex(workflows.build());
+        merged = new Merged(stamps, index);
+        return index;
+    }
+
+    private List<Stamp> stamps() {
+        List<Stamp> stamps = new ArrayList<>(layers.size());
+        for (FileHandler layer : layers) {
+            stamps.add(Stamp.of(layer.getWorkflowFile()));
+        }
+        return stamps;
+    }
+
+    /**
+     * The size and modification time of a workflow file, or {@link #MISSING} if there is none.
+     */
+    private record Stamp(long size, long mtime) {
+
+        private static final Stamp MISSING = new Stamp(-1, -1);
+
+        static Stamp of(Path file) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return new Stamp(attributes.size(), attributes.lastModifiedTime().toMillis());
+            } catch (IOException e) {
+                return MISSING;
+            }
+        }
+
+        boolean exists() {
+            return size >= 0;
+        }
+    }
+
+    private record Merged(List<Stamp> stamps, WorkflowIndex index) {
+    }
+}
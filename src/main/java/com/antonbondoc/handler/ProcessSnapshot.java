@@ -0,0 +1,155 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.launcher.Executables;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A single snapshot of the process table, indexed by executable path and by the first command line argument that is
+ * not an option.
+ * <p>
+ * The snapshot is taken once per launch so every application of a workflow is checked against the same table instead
+ * of walking the process table again for each of them. The executable of a process identifies the application it runs.
+ * A script shows up as the interpreter running it instead, with the script as an argument, so an application missing
+ * from the executables is looked up among the arguments. There, a process only counts when its executable is the
+ * interpreter named on the first line of the script: a process that was merely given the application as an argument,
+ * such as an editor opening it, does not count.
+ */
+final class ProcessSnapshot {
+
+    private static final int SHEBANG_LENGTH = 256;
+
+    private final Map<String, ProcessHandle> byExecutable = new HashMap<>();
+    private final Map<String, List<ProcessHandle>> byArgument = new HashMap<>();
+
+    private ProcessSnapshot() {
+    }
+
+    /**
+     * Take a snapshot of the processes currently visible to this user.
+     *
+     * @return the snapshot of the process table
+     */
+    static ProcessSnapshot take() {
+        ProcessSnapshot snapshot = new ProcessSnapshot();
+        long self = ProcessHandle.current().pid();
+        ProcessHandle.allProcesses()
+                .filter(process -> process.pid() != self)
+                .forEach(snapshot::add);
+        return snapshot;
+    }
+
+    private void add(ProcessHandle process) {
+        ProcessHandle.Info info = process.info();
+        info.command().ifPresent(command -> byExecutable.putIfAbsent(command, process));
+        info.arguments().ifPresent(arguments -> {
+            for (String argument : arguments) {
+                if (!argument.startsWith("-")) {
+                    byArgument.computeIfAbsent(argument, key -> new ArrayList<>(1)).add(process);
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * Find a running process of the given application.
+     *
+     * @param app the application to launch, which matches a process running its resolved executable, or running the
+     *            interpreter of the script with the script as an argument
+     * @return the running process of the application, if any
+     */
+    Optional<ProcessHandle> find(String app) {
+        Optional<Path> executable = Executables.resolve(app);
+        if (executable.isEmpty()) {
+            return Optional.empty();
+        }
+        ProcessHandle process = byExecutable.get(executable.get().toString());
+        if (process != null) {
+            return Optional.of(process);
+        }
+        // The script is passed to its interpreter as the path it was run with, which may be a symbolic link
+        Set<String> paths = new LinkedHashSet<>();
+        Executables.find(app).ifPresent(path -> paths.add(path.toString()));
+        paths.add(executable.get().toString());
+        Optional<String> interpreter = Optional.empty();
+        for (String path : paths) {
+            for (ProcessHandle candidate : byArgument.getOrDefault(path, List.of())) {
+                if (interpreter.isEmpty()) {
+                    interpreter = interpreterOf(executable.get()).map(Path::toString);
+                    if (interpreter.isEmpty()) {
+                        return Optional.empty();
+                    }
+                }
+                if (candidate.info().command().equals(interpreter)) {
+                    return Optional.of(candidate);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Read the interpreter from the {@code #!} line of a script, looking up the command run through {@code env}.
+     *
+     * @param script the real path of the script
+     * @return the real path of the interpreter, if the file is a script whose interpreter exists
+     */
+    static Optional<Path> interpreterOf(Path script) {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(script)) {
+            head = in.readNBytes(SHEBANG_LENGTH);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        String line = new String(head, StandardCharsets.UTF_8).lines().findFirst().orElse("");
+        if (!line.startsWith("#!")) {
+            return Optional.empty();
+        }
+        String[] words = line.substring(2).trim().split("\\s+");
+        int idx = 0;
+        if (words[0].endsWith("/env")) {
+            // Skip the options of env, such as -S, and the variables it sets before the command
+            idx = 1;
+            while (idx < words.length && (words[idx].startsWith("-") || words[idx].contains("="))) {
+                idx++;
+            }
+        }
+        return idx < words.length && !words[idx].isEmpty() ? Executables.resolve(words[idx]) : Optional.empty();
+    }
+}
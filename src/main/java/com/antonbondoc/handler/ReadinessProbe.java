@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.Readiness;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Polls the readiness probe of a launched tool.
+ */
+final class ReadinessProbe {
+
+    static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+
+    private static final long POLL_INTERVAL_MILLIS = 50;
+    private static final int CONNECT_TIMEOUT_MILLIS = 200;
+
+    private ReadinessProbe() {
+    }
+
+    /**
+     * Wait until every check of the probe passes.
+     *
+     * @param readiness the probe of the tool
+     * @param process   the process started for the tool, or {@code null} if it has none
+     * @return whether the probe passed before it timed out
+     */
+    static boolean await(Readiness readiness, ProcessHandle process) throws InterruptedException {
+        long launchedAt = System.currentTimeMillis();
+        long timeout = readiness.getTimeoutMillis() != null ? readiness.getTimeoutMillis() : DEFAULT_TIMEOUT_MILLIS;
+        long deadline = launchedAt + timeout;
+        while (true) {
+            if (process != null && readiness.getAliveMillis() != null && !process.isAlive()) {
+                return false;
+            }
+            if (passes(readiness, process, launchedAt)) {
+                return true;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    private static boolean passes(Readiness readiness, ProcessHandle process, long launchedAt) {
+        if (readiness.getAliveMillis() != null && process != null
+                && System.currentTimeMillis() - launchedAt < readiness.getAliveMillis()) {
+            return false;
+        }
+        if (readiness.getFile() != null && !Files.exists(Paths.get(readiness.getFile()))) {
+            return false;
+        }
+        return readiness.getPort() == null || isListening(readiness.getPort());
+    }
+
+    private static boolean isListening(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.LaunchResult;
+import com.antonbondoc.model.Workflow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The applications Antika started for each workflow mode, kept in a small state file per mode in
+ * {@code ~/.antika/running}. The modes are matched regardless of case, the same as {@code --mode}, and the state does
+ * not depend on the directory Antika runs in.
+ * <p>
+ * Each line of a state file is {@code pid<TAB>start<TAB>tool}, where the start time in epoch milliseconds guards
+ * against the process id having been reused by another process since ({@code -1} when the platform does not report
+ * it). Processes that have exited are dropped whenever a state file is read.
+ */
+public class RunningTools {
+
+    public static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("user.home"), ".antika", "running");
+
+    private final Path directory;
+
+    public RunningTools() {
+        this(DEFAULT_DIRECTORY);
+    }
+
+    /**
+     * @param directory the directory the state files are kept in
+     */
+    public RunningTools(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param mode the workflow mode
+     * @return the applications of the mode that are still running, by the tool as written in the workflow file
+     */
+    public Map<String, ProcessHandle> read(String mode) {
+        Map<String, ProcessHandle> running = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(fileOf(mode), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 3);
+                if (fields.length < 3) {
+                    continue;
+                }
+                try {
+                    long pid = Long.parseLong(fields[0]);
+                    long start = Long.parseLong(fields[1]);
+                    ProcessHandle.of(pid)
+                            .filter(ProcessHandle::isAlive)
+                            .filter(process -> start < 0 || start == startOf(process))
+                            .ifPresent(process -> running.put(fields[2], process));
+                } catch (NumberFormatException ignored) {
+                    // Not a line written by Antika
+                }
+            }
+        } catch (NoSuchFileException ignored) {
+            // Nothing was started for this mode
+        } catch (IOException e) {
+            System.out.printf("[WARN] Unable to read the running tools of '%s': %s%n", mode, e.getMessage());
+        }
+        return running;
+    }
+
+    /**
+     * Add the applications of the workflow started by a launch to the ones still running for its mode. A launch of
+     * several merged workflows is recorded for each of them, with only the applications that workflow lists.
+     *
+     * @param workflow the workflow as written in the workflow file
+     * @param results  the outcome of each launch
+     */
+    public void record(Workflow workflow, List<LaunchResult> results) {
+        Map<String, String> apps = new HashMap<>();
+        if (workflow.getApps() != null) {
+            for (String app : workflow.getApps()) {
+                apps.putIfAbsent(WorkflowMerger.appKey(app), app);
+            }
+        }
+        Map<String, ProcessHandle> running = read(workflow.getMode());
+        for (LaunchResult result : results) {
+            if (result.type() == LaunchResult.Type.APP && result.success() && !result.skipped()
+                    && result.process() != null) {
+                String app = apps.get(WorkflowMerger.appKey(result.tool()));
+                if (app != null) {
+                    running.put(app, result.process());
+                }
+            }
+        }
+        write(workflow.getMode(), running);
+    }
+
+    /**
+     * Replace the running applications of the mode, removing its state file when there are none.
+     *
+     * @param mode    the workflow mode
+     * @param running the running applications by the tool as written in the workflow file
+     */
+    public void write(String mode, Map<String, ProcessHandle> running) {
+        Path file = fileOf(mode);
+        try {
+            if (running.isEmpty()) {
+                Files.deleteIfExists(file);
+                return;
+            }
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    for (Map.Entry<String, ProcessHandle> entry : running.entrySet()) {
+                        if (entry.getKey().indexOf('\n') >= 0) {
+                            continue;
+                        }
+                        writer.append(String.valueOf(entry.getValue().pid())).append('\t')
+                                .append(String.valueOf(startOf(entry.getValue()))).append('\t')
+                                .append(entry.getKey()).append('\n');
+                    }
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            System.out.printf("[WARN] Unable to record the running tools of '%s': %s%n", mode, e.getMessage());
+        }
+    }
+
+    private Path fileOf(String mode) {
+        return directory.resolve(URLEncoder.encode(WorkflowIndex.fold(mode), StandardCharsets.UTF_8) + ".pids");
+    }
+
+    private static long startOf(ProcessHandle process) {
+        Optional<Instant> start = process.info().startInstant();
+        return start.map(Instant::toEpochMilli).orElse(-1L);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.LaunchResult;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Paces the websites of large workflows so the browser is not handed more of them than it can take in.
+ * <p>
+ * No more browser calls are in flight than the burst allows, so by default the next website is only sent once the
+ * previous browser call returned. A token bucket charging one token per website, batched websites included, limits the
+ * overall rate while allowing a short burst, and every host may be given a rate of its own.
+ */
+public class WebsiteThrottle {
+
+    private final TokenBucket bucket;
+    private final double hostRate;
+    private final Map<String, TokenBucket> hostBuckets = new ConcurrentHashMap<>();
+    // Fair, so the websites are dispatched in the order they became ready
+    private final Semaphore dispatching;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger sent = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * @param rate     the number of websites dispatched per second, or {@link Double#POSITIVE_INFINITY} to only
+     *                 dispatch them one at a time
+     * @param burst    the number of websites that may be dispatched at once after a pause, each browser call of the
+     *                 burst running concurrently
+     * @param hostRate the number of websites of the same host dispatched per second, or {@code 0} for no host limit
+     */
+    public WebsiteThrottle(double rate, int burst, double hostRate) {
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException("The website rate must be positive");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("The website burst must be at least 1");
+        }
+        if (!(hostRate >= 0)) {
+            throw new IllegalArgumentException("The website rate per host must not be negative");
+        }
+        this.bucket = new TokenBucket(rate, burst);
+        this.dispatching = new Semaphore(burst, true);
+        this.hostRate = hostRate;
+    }
+
+    /**
+     * Wait for the turn of the website and dispatch it, blocking until the dispatch is confirmed.
+     *
+     * @param url      the normalized website, or {@code null} for a batch of websites without host limits
+     * @param websites the number of websites dispatched together
+     * @param dispatch opens the websites and reports the outcome of each one
+     * @return the outcome reported by the dispatch
+     */
+    <T> T dispatch(String url, int websites, Dispatch<T> dispatch) throws InterruptedException {
+        queued.addAndGet(websites);
+        if (url != null && hostRate > 0) {
+            TokenBucket host = hostBuckets.computeIfAbsent(hostOf(url), key -> new TokenBucket(hostRate, 1));
+            host.acquire(1);
+        }
+        dispatching.acquire();
+        try {
+            bucket.acquire(websites);
+            return dispatch.call();
+        } finally {
+            dispatching.release();
+        }
+    }
+
+    /**
+     * Count the outcome of a dispatched website.
+     */
+    void record(LaunchResult result) {
+        (result.success() ? sent : failed).incrementAndGet();
+    }
+
+    /**
+     * @return the number of websites handed to the throttle
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * @return the number of websites dispatched to the browser
+     */
+    public int getSent() {
+        return sent.get();
+    }
+
+    /**
+     * @return the number of websites the browser could not be asked to open
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    private static String hostOf(String url) {
+        String host = URI.create(url).getHost();
+        return host != null ? host.toLowerCase(Locale.ROOT) : "";
+    }
+
+    @FunctionalInterface
+    interface Dispatch<T> {
+        T call() throws InterruptedException;
+    }
+
+    /**
+     * A token bucket handing out reservations: a caller takes its tokens right away and waits for them to be refilled
+     * if the bucket ran dry, so the waiting callers are served in the order they arrived.
+     */
+    private static final class TokenBucket {
+
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        private TokenBucket(double ratePerSecond, int capacity) {
+            this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = capacity;
+            this.tokens = capacity;
+        }
+
+        void acquire(int count) throws InterruptedException {
+            if (Double.isInfinite(tokensPerNano)) {
+                return;
+            }
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+                refilledAt = now;
+                tokens -= count;
+                wait = tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+            }
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+    }
+}
@@ -0,0 +1,529 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.Readiness;
+import com.antonbondoc.model.ToolDependency;
+import com.antonbondoc.model.Workflow;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * A compiled binary cache of a workflow file, stored next to the source file. The cache of a shared workflow file in a
+ * directory the user cannot write to, such as the system one, is stored in {@code ~/.antika/cache} instead.
+ * <p>
+ * The cache is keyed on the size, modification time and SHA-256 hash of the source file. A matching size and
+ * modification time is trusted as is, while a changed modification time falls back to comparing the content hash so a
+ * touched but unchanged file does not trigger a re-parse.
+ * <p>
+ * Layout: {@code magic, version, size, mtime, hash[32], text, offsets, modes, starts, tools, missing,
+ * (workflow, dependencies) * entries}. This is the {@link CompactWorkflows} string table and index arrays as is, each
+ * one count-prefixed, so reading the cache is a handful of bulk copies. Each string is a length-prefixed UTF-8 byte
+ * sequence and each list is count-prefixed ({@code -1} for a missing list). A dependency is
+ * {@code (tool, dependsOn, readiness)}, with the readiness flagged by a leading presence byte.
+ * <p>
+ * Every time the cache is written, the sorted workflow modes are also written one per line to a plain text mode
+ * index next to it, which the shell completion scripts read without starting a JVM. The mode index is never older
+ * than the source file it was written for, so the scripts can tell a stale one by its modification time.
+ */
+public class WorkflowCache {
+
+    private static final int MAGIC = 0x414E544B; // "ANTK"
+    private static final int VERSION = 3;
+    private static final int HASH_LENGTH = 32;
+    private static final int MTIME_OFFSET = Integer.BYTES * 2 + Long.BYTES;
+
+    static final Path USER_CACHE_DIRECTORY = Paths.get(System.getProperty("user.home"), ".antika", "cache");
+
+    private final Path source;
+    private final Path cache;
+    private final Path userCache;
+    private final Path modeIndex;
+
+    /**
+     * The last workflows read or built by this instance, so a long-lived process only has to stat the source file.
+     */
+    private volatile Snapshot memory;
+
+    private volatile WorkflowIndex index;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public WorkflowCache(File source) {
+        this.source = source.toPath();
+        this.cache = this.source.resolveSibling("." + source.getName() + ".bin");
+        // String.hashCode is specified, so every run picks the same file for the same source path
+        String key = Integer.toHexString(this.source.toAbsolutePath().toString().hashCode());
+        this.userCache = USER_CACHE_DIRECTORY.resolve(key + "-" + source.getName() + ".bin");
+        this.modeIndex = this.source.resolveSibling("." + source.getName() + ".modes");
+    }
+
+    /**
+     * Return the workflows from the cache, rebuilding it with the given parser if it is missing or stale.
+     *
+     * @param parser parses the source workflow file
+     * @return the workflows of the source file
+     */
+    public List<Workflow> load(Supplier<List<Workflow>> parser) {
+        List<Workflow> workflows = loadIfFresh();
+        return workflows != null ? workflows : rebuild(parser);
+    }
+
+    /**
+     * Return the workflows from the cache only if it is still up to date with the source file.
+     *
+     * @return the cached workflows, or {@code null} if the cache is missing or stale
+     */
+    public List<Workflow> loadIfFresh() {
+        try {
+            return read();
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException ignored) {
+            // A corrupt or unreadable cache is treated the same as a missing one
+            return null;
+        }
+    }
+
+    /**
+     * Return the mode index of the given workflows, reusing it for as long as the same workflows are loaded.
+     *
+     * @param workflows the workflows returned by this cache
+     * @return the index over the workflow modes
+     */
+    public WorkflowIndex index(List<Workflow> workflows) {
+        WorkflowIndex current = index;
+        if (current == null || current.getWorkflows() != workflows) {
+            current = new WorkflowIndex(workflows);
+            index = current;
+        }
+        return current;
+    }
+
+    /**
+     * Rebuild the cache on a background thread if it is still missing or stale, such as after a lookup streamed the
+     * source file. The thread is not a daemon thread, so a command line run writes the cache before the JVM exits and
+     * the next run finds it. A source file the parser rejects is left uncached for the full parse to report.
+     *
+     * @param parser parses the source workflow file, throwing rather than exiting when it is not valid
+     */
+    public void rebuildLater(Callable<List<Workflow>> parser) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofPlatform().name("workflow-cache").start(() -> {
+            try {
+                if (loadIfFresh() == null) {
+                    rebuild(() -> {
+                        try {
+                            return parser.call();
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    });
+                }
+            } catch (RuntimeException ignored) {
+                // The lookup already has what it needs from the file
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+    }
+
+    /**
+     * Parse the source file with the given parser and write a fresh cache regardless of its current state.
+     *
+     * @param parser parses the source workflow file
+     * @return the workflows of the source file
+     */
+    public List<Workflow> rebuild(Supplier<List<Workflow>> parser) {
+        // The key is taken before parsing, so an edit during the parse leaves a stale cache behind rather than the old
+        // workflows stored under the key of the edited file
+        BasicFileAttributes attributes;
+        byte[] hash;
+        IOException failure = null;
+        try {
+            attributes = Files.readAttributes(source, BasicFileAttributes.class);
+            hash = hash();
+        } catch (IOException e) {
+            // Let the parser report a missing or unreadable workflow file first
+            attributes = null;
+            hash = null;
+            failure = e;
+        }
+        CompactWorkflows workflows = CompactWorkflows.of(parser.get());
+        if (failure != null) {
+            System.out.printf("[WARN] Unable to write the workflow cache: %s%n", failure.getMessage());
+            return workflows;
+        }
+        memory = new Snapshot(attributes.size(), attributes.lastModifiedTime().toMillis(), workflows);
+        try {
+            if (isShared()) {
+                Files.createDirectories(USER_CACHE_DIRECTORY);
+                write(userCache, workflows, attributes, hash);
+            } else {
+                write(cache, workflows, attributes, hash);
+                writeModeIndex(workflows);
+            }
+        } catch (IOException e) {
+            System.out.printf("[WARN] Unable to write the workflow cache: %s%n", e.getMessage());
+        }
+        return workflows;
+    }
+
+    private List<Workflow> read() throws IOException {
+        if (!Files.exists(source)) {
+            return null;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        long sourceSize = attributes.size();
+        long sourceMtime = attributes.lastModifiedTime().toMillis();
+        Snapshot snapshot = memory;
+        if (snapshot != null && snapshot.size() == sourceSize && snapshot.mtime() == sourceMtime) {
+            return snapshot.workflows();
+        }
+        // A cache next to a shared workflow file may have been written by its owner, otherwise the user has their own
+        CompactWorkflows workflows = read(cache, sourceSize, sourceMtime);
+        if (workflows == null && isShared()) {
+            workflows = read(userCache, sourceSize, sourceMtime);
+        }
+        if (workflows != null) {
+            memory = new Snapshot(sourceSize, sourceMtime, workflows);
+        }
+        return workflows;
+    }
+
+    private CompactWorkflows read(Path file, long sourceSize, long sourceMtime) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            long size = buffer.getLong();
+            long mtime = buffer.getLong();
+            byte[] hash = new byte[HASH_LENGTH];
+            buffer.get(hash);
+
+            if (size != sourceSize) {
+                return null;
+            }
+            boolean touched = mtime != sourceMtime;
+            if (touched) {
+                if (!Arrays.equals(hash, hash())) {
+                    return null;
+                }
+                touch(file, sourceMtime);
+            }
+            CompactWorkflows workflows = decode(buffer);
+            if (file == cache) {
+                refreshModeIndex(workflows, touched);
+            }
+            return workflows;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // A corrupt cache is treated the same as a missing one, so a corrupt shared one still lets the user cache in
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the source file is in a directory the user cannot write to, so its cache is kept per user
+     */
+    private boolean isShared() {
+        return !Files.isWritable(cache.toAbsolutePath().getParent());
+    }
+
+    private CompactWorkflows decode(ByteBuffer buffer) {
+        byte[] text = new byte[length(buffer, Byte.BYTES)];
+        buffer.get(text);
+        int[] offsets = readInts(buffer);
+        int[] modes = readInts(buffer);
+        int[] starts = readInts(buffer);
+        int[] tools = readInts(buffer);
+        long[] missing = new long[length(buffer, Long.BYTES)];
+        buffer.asLongBuffer().get(missing);
+        buffer.position(buffer.position() + missing.length * Long.BYTES);
+        int entries = buffer.getInt();
+        Map<Integer, List<ToolDependency>> dependencies = new HashMap<>();
+        for (int i = 0; i < entries; i++) {
+            int index = buffer.getInt();
+            List<ToolDependency> workflowDependencies = readDependencies(buffer);
+            if (index < 0 || index >= modes.length || workflowDependencies == null) {
+                throw new IllegalArgumentException("Malformed dependencies of workflow " + index);
+            }
+            dependencies.put(index, Collections.unmodifiableList(workflowDependencies));
+        }
+        return new CompactWorkflows(text, offsets, modes, starts, tools, BitSet.valueOf(missing),
+                Map.copyOf(dependencies));
+    }
+
+    private static void write(Path file, CompactWorkflows workflows, BasicFileAttributes attributes, byte[] hash)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(attributes.size());
+            out.writeLong(attributes.lastModifiedTime().toMillis());
+            out.write(hash);
+            out.writeInt(workflows.text().length);
+            out.write(workflows.text());
+            writeInts(out, workflows.offsets());
+            writeInts(out, workflows.modes());
+            writeInts(out, workflows.starts());
+            writeInts(out, workflows.tools());
+            long[] missing = workflows.missing().toLongArray();
+            out.writeInt(missing.length);
+            for (long word : missing) {
+                out.writeLong(word);
+            }
+            out.writeInt(workflows.dependencies().size());
+            for (Map.Entry<Integer, List<ToolDependency>> entry : workflows.dependencies().entrySet()) {
+                out.writeInt(entry.getKey());
+                writeDependencies(out, entry.getValue());
+            }
+        }
+        replace(file, bytes.toByteArray());
+    }
+
+    /**
+     * Write the distinct workflow modes in sorted order, one per line. A mode spanning several lines cannot be
+     * completed and is left out.
+     */
+    private void writeModeIndex(CompactWorkflows workflows) throws IOException {
+        Set<String> modes = new TreeSet<>();
+        for (int i = 0; i < workflows.size(); i++) {
+            String mode = workflows.getMode(i);
+            if (mode != null && mode.indexOf('\n') < 0 && mode.indexOf('\r') < 0) {
+                modes.add(mode);
+            }
+        }
+        StringBuilder lines = new StringBuilder();
+        modes.forEach(mode -> lines.append(mode).append('\n'));
+        replace(modeIndex, lines.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Keep the mode index of a cache read from disk usable: write it if it is missing, such as for a cache written by
+     * an older version, and mark it as fresh again when the source file was only touched.
+     */
+    private void refreshModeIndex(CompactWorkflows workflows, boolean touched) {
+        try {
+            if (!Files.exists(modeIndex)) {
+                writeModeIndex(workflows);
+            } else if (touched) {
+                Files.setLastModifiedTime(modeIndex, FileTime.from(Instant.now()));
+            }
+        } catch (IOException ignored) {
+            // The completion scripts rebuild a missing or stale mode index on their own
+        }
+    }
+
+    /**
+     * Replace the file with the content through a temporary file, so readers never see a partly written file.
+     */
+    private static void replace(Path file, byte[] content) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Update the stored modification time after the content hash confirmed the source is unchanged.
+     */
+    private static void touch(Path file, long mtime) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, mtime);
+            channel.write(buffer, MTIME_OFFSET);
+        } catch (IOException ignored) {
+            // The cache is still valid, it would only be re-hashed on the next run
+        }
+    }
+
+    private byte[] hash() throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream input = new DigestInputStream(Files.newInputStream(source), digest)) {
+                input.transferTo(OutputStream.nullOutputStream());
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> readList(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(buffer));
+        }
+        return values;
+    }
+
+    private static int[] readInts(ByteBuffer buffer) {
+        int[] values = new int[length(buffer, Integer.BYTES)];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    private static List<ToolDependency> readDependencies(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0) {
+            return null;
+        }
+        List<ToolDependency> dependencies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String tool = readString(buffer);
+            List<String> dependsOn = readList(buffer);
+            Readiness readiness = null;
+            if (buffer.get() != 0) {
+                readiness = new Readiness();
+                int port = buffer.getInt();
+                readiness.setPort(port < 0 ? null : port);
+                readiness.setFile(readString(buffer));
+                long aliveMillis = buffer.getLong();
+                readiness.setAliveMillis(aliveMillis < 0 ? null : aliveMillis);
+                long timeoutMillis = buffer.getLong();
+                readiness.setTimeoutMillis(timeoutMillis < 0 ? null : timeoutMillis);
+            }
+            dependencies.add(new ToolDependency(tool, dependsOn, readiness));
+        }
+        return dependencies;
+    }
+
+    private static void writeDependencies(DataOutputStream out, List<ToolDependency> dependencies) throws IOException {
+        if (dependencies == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(dependencies.size());
+        for (ToolDependency dependency : dependencies) {
+            writeString(out, dependency.getTool());
+            writeList(out, dependency.getDependsOn());
+            Readiness readiness = dependency.getReadiness();
+            out.writeBoolean(readiness != null);
+            if (readiness != null) {
+                out.writeInt(readiness.getPort() != null ? readiness.getPort() : -1);
+                writeString(out, readiness.getFile());
+                out.writeLong(readiness.getAliveMillis() != null ? readiness.getAliveMillis() : -1);
+                out.writeLong(readiness.getTimeoutMillis() != null ? readiness.getTimeoutMillis() : -1);
+            }
+        }
+    }
+
+    /**
+     * Read the count of an array, rejecting one larger than what is left of the cache file.
+     */
+    private static int length(ByteBuffer buffer, int elementBytes) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining() / elementBytes) {
+            throw new IllegalArgumentException("Array length out of range: " + length);
+        }
+        return length;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeList(DataOutputStream out, List<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private record Snapshot(long size, long mtime, List<Workflow> workflows) {
+    }
+}
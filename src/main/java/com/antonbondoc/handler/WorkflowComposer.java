@@ -0,0 +1,166 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.ToolDependency;
+import com.antonbondoc.model.Workflow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Flattens the workflows that {@code extends} other workflows into their effective workflows.
+ * <p>
+ * The tools of the extended workflows come first, in the order they are extended, followed by the tools of the
+ * workflow itself. A tool listed more than once is kept at its first position. A dependency declared by the workflow
+ * replaces an inherited dependency of the same tool. Every workflow is resolved once per load, so resolving is linear in
+ * the size of the inheritance graph.
+ */
+final class WorkflowComposer {
+
+    private final Map<String, Workflow> byMode = new HashMap<>();
+    private final Map<Workflow, Workflow> resolved = new IdentityHashMap<>();
+    /**
+     * The path of workflows being resolved, for the cycle message, and the same workflows as a set to detect a cycle.
+     */
+    private final List<Workflow> resolving = new ArrayList<>();
+    private final Set<Workflow> inProgress = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private WorkflowComposer(List<Workflow> workflows) {
+        for (Workflow workflow : workflows) {
+            if (workflow != null && workflow.getMode() != null) {
+                // The first workflow of a mode wins and modes are matched regardless of case, the same as the mode lookup
+                byMode.putIfAbsent(WorkflowIndex.fold(workflow.getMode()), workflow);
+            }
+        }
+    }
+
+    /**
+     * Resolve the given workflows into their effective workflows, in the same order.
+     *
+     * @param workflows the workflows as written in the workflow file
+     * @return the effective workflows, or the given list itself if no workflow extends another
+     * @throws IllegalArgumentException if a workflow extends an unknown workflow or itself, directly or not
+     */
+    static List<Workflow> resolve(List<Workflow> workflows) {
+        if (workflows.stream().noneMatch(WorkflowComposer::isExtending)) {
+            return workflows;
+        }
+        WorkflowComposer composer = new WorkflowComposer(workflows);
+        List<Workflow> effective = new ArrayList<>(workflows.size());
+        for (Workflow workflow : workflows) {
+            effective.add(workflow == null ? null : composer.resolve(workflow));
+        }
+        return effective;
+    }
+
+    private Workflow resolve(Workflow workflow) {
+        if (!isExtending(workflow)) {
+            return workflow;
+        }
+        Workflow done = resolved.get(workflow);
+        if (done != null) {
+            return done;
+        }
+        if (inProgress.contains(workflow)) {
+            List<String> cycle = new ArrayList<>();
+            for (Workflow step : resolving.subList(resolving.indexOf(workflow), resolving.size())) {
+                cycle.add(step.getMode());
+            }
+            cycle.add(workflow.getMode());
+            throw new IllegalArgumentException(String.format("'%s' workflow extends itself: %s",
+                    workflow.getMode(), String.join(" -> ", cycle)));
+        }
+
+        resolving.add(workflow);
+        inProgress.add(workflow);
+        List<Workflow> parents = new ArrayList<>(workflow.getExtends().size());
+        for (String mode : workflow.getExtends()) {
+            Workflow parent = mode == null ? null : byMode.get(WorkflowIndex.fold(mode));
+            if (parent == null) {
+                throw new IllegalArgumentException(String.format("'%s' workflow extends an unknown workflow '%s'",
+                        workflow.getMode(), mode));
+            }
+            parents.add(resolve(parent));
+        }
+        resolving.removeLast();
+        inProgress.remove(workflow);
+
+        Workflow flat = new Workflow(workflow.getMode(),
+                mergeTools(parents, workflow, Workflow::getApps),
+                mergeTools(parents, workflow, Workflow::getWebsites));
+        flat.setDependencies(mergeDependencies(parents, workflow));
+        resolved.put(workflow, flat);
+        return flat;
+    }
+
+    private static boolean isExtending(Workflow workflow) {
+        return workflow != null && workflow.getExtends() != null && !workflow.getExtends().isEmpty();
+    }
+
+    private static List<String> mergeTools(List<Workflow> parents, Workflow workflow,
+                                           Function<Workflow, List<String>> tools) {
+        Set<String> merged = new LinkedHashSet<>();
+        boolean present = false;
+        for (Workflow source : sourcesOf(parents, workflow)) {
+            List<String> values = tools.apply(source);
+            if (values != null) {
+                present = true;
+                merged.addAll(values);
+            }
+        }
+        // Keep a missing list missing, so an empty workflow is still reported as such
+        return present ? new ArrayList<>(merged) : null;
+    }
+
+    private static List<ToolDependency> mergeDependencies(List<Workflow> parents, Workflow workflow) {
+        Map<String, ToolDependency> merged = new LinkedHashMap<>();
+        boolean present = false;
+        for (Workflow source : sourcesOf(parents, workflow)) {
+            if (source.getDependencies() != null) {
+                present = true;
+                for (ToolDependency dependency : source.getDependencies()) {
+                    merged.put(dependency.getTool(), dependency);
+                }
+            }
+        }
+        return present ? new ArrayList<>(merged.values()) : null;
+    }
+
+    private static List<Workflow> sourcesOf(List<Workflow> parents, Workflow workflow) {
+        List<Workflow> sources = new ArrayList<>(parents);
+        sources.add(workflow);
+        return sources;
+    }
+}
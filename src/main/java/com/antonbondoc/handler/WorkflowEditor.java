@@ -0,0 +1,683 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Edits single workflows of a workflow file in place.
+ * <p>
+ * The file is walked as a stream of parser events, which carry their position in the file, so only the region of the
+ * edited workflow is rewritten and every other byte of the file is kept as is, comments and formatting included. JSON
+ * is read through the same YAML parser, as a JSON document is also a YAML flow document.
+ * <p>
+ * Each edit holds an exclusive lock on a lock file next to the workflow file from reading the file until the edited
+ * copy has been renamed over it, so concurrent edits are applied one after the other and never lose an update. The
+ * workflow file itself is not locked, as the rename replaces it while a waiting edit would still hold the old file.
+ * The lock file is deleted at the end of every edit.
+ */
+public class WorkflowEditor {
+
+    private static final String KEY_WORKFLOWS = "workflows";
+    private static final String KEY_MODE = "mode";
+    private static final String KEY_APPS = "apps";
+    private static final String KEY_WEBSITES = "websites";
+    private static final String KEY_DEPENDENCIES = "dependencies";
+
+    private final Path file;
+    private final boolean json;
+
+    /**
+     * @param file the workflow file to edit, a JSON file if its name ends with {@code .json}
+     */
+    public WorkflowEditor(Path file) {
+        this.file = file;
+        this.json = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json");
+    }
+
+    /**
+     * @return the workflow file edited
+     */
+    public Path getWorkflowFile() {
+        return file;
+    }
+
+    /**
+     * Whether a tool is added as a website rather than an application: when it has a URI scheme or starts with
+     * {@code www.}, the same way websites are written in the workflow files.
+     *
+     * @param tool the application path or website URL
+     * @return {@code true} if the tool is a website
+     */
+    public static boolean isWebsite(String tool) {
+        return tool.contains("://") || tool.toLowerCase(Locale.ROOT).startsWith("www.");
+    }
+
+    /**
+     * Add a tool to the apps or websites of a workflow, see {@link #isWebsite(String)}.
+     *
+     * @param mode the workflow mode, ignoring case
+     * @param tool the application path or website URL
+     * @return {@code false} if the workflow already has the tool
+     * @throws IOException if the workflow does not exist or the file cannot be edited
+     */
+    public boolean addTool(String mode, String tool) throws IOException {
+        String key = isWebsite(tool) ? KEY_WEBSITES : KEY_APPS;
+        return edit(text -> {
+            Node workflow = text.scan(mode).workflow();
+            if (workflow == null) {
+                throw new IOException(String.format("'%s' workflow does not exist", mode));
+            }
+            Node tools = workflow.get(key);
+            if (tools == null) {
+                text.addEntry(workflow, key, text.scalar(tool, false), text.scalar(tool, true));
+            } else if (tools.isSequence()) {
+                if (tools.children.stream().anyMatch(item -> item.is(tool))) {
+                    return false;
+                }
+                text.addItem(tools, text.scalar(tool, false), text.scalar(tool, true));
+            } else {
+                text.setSequence(workflow, tools, text.scalar(tool, false), text.scalar(tool, true));
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Remove every occurrence of a tool from the apps and websites of a workflow.
+     *
+     * @param mode the workflow mode, ignoring case
+     * @param tool the application path or website URL
+     * @return {@code false} if the workflow does not have the tool
+     * @throws IOException if the workflow does not exist, a dependency of the workflow names the tool, or the file
+     *                     cannot be edited
+     */
+    public boolean removeTool(String mode, String tool) throws IOException {
+        return edit(text -> {
+            Node workflow = text.scan(mode).workflow();
+            if (workflow == null) {
+                throw new IOException(String.format("'%s' workflow does not exist", mode));
+            }
+            if (dependsOn(workflow.get(KEY_DEPENDENCIES), tool)) {
+                throw new IOException(String.format(
+                        "'%s' is named in the dependencies of the '%s' workflow, remove the dependency first",
+                        tool, mode));
+            }
+            boolean removed = false;
+            for (String key : List.of(KEY_APPS, KEY_WEBSITES)) {
+                Node tools = workflow.get(key);
+                if (tools != null && tools.isSequence() && tools.children.stream().anyMatch(item -> item.is(tool))) {
+                    text.removeItems(workflow, key, tools, tool);
+                    removed = true;
+                }
+            }
+            return removed;
+        });
+    }
+
+    /**
+     * Add a workflow without any tools at the end of the workflow file.
+     *
+     * @param mode the mode of the new workflow
+     * @throws IOException if the workflow file already has the mode or cannot be edited
+     */
+    public void addMode(String mode) throws IOException {
+        edit(text -> {
+            if (text.content.isBlank()) {
+                text.replace(0, text.content.length(), json
+                        ? "{" + text.newline + "  \"" + KEY_WORKFLOWS + "\": [" + text.newline + "    "
+                        + text.workflow(mode, true) + text.newline + "  ]" + text.newline + "}" + text.newline
+                        : KEY_WORKFLOWS + ":" + text.newline + "- " + text.workflow(mode, false) + text.newline);
+                return true;
+            }
+            Scan scan = text.scan(mode);
+            if (scan.workflow() != null) {
+                throw new IOException(String.format("'%s' workflow already exists", mode));
+            }
+            if (scan.workflows() == null) {
+                text.addEntry(scan.root(), KEY_WORKFLOWS, text.workflow(mode, false), text.workflow(mode, true));
+            } else if (scan.workflows().isSequence()) {
+                text.addItem(scan.workflows(), scan.previous(), scan.last(), text.workflow(mode, false),
+                        text.workflow(mode, true));
+            } else {
+                text.setSequence(scan.root(), scan.workflows(), text.workflow(mode, false), text.workflow(mode, true));
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Whether a dependency of the workflow launches or waits for the tool.
+     */
+    private static boolean dependsOn(Node dependencies, String tool) {
+        if (dependencies == null || !dependencies.isSequence()) {
+            return false;
+        }
+        for (Node dependency : dependencies.children) {
+            Node name = dependency.get("tool");
+            Node dependsOn = dependency.get("dependsOn");
+            if (name != null && name.is(tool)
+                    || dependsOn != null && dependsOn.children.stream().anyMatch(item -> item.is(tool))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Apply a change to the content of the workflow file while holding the lock, replacing the file only if the
+     * change made an edit.
+     */
+    private boolean edit(Change change) throws IOException {
+        if (!Files.exists(file)) {
+            throw new IOException("Workflow file does not exist");
+        }
+        Path lockFile = file.resolveSibling("." + file.getFileName() + ".lock");
+        try {
+            FileChannel channel = lock(lockFile);
+            try {
+                Text text = new Text(Files.readString(file, StandardCharsets.UTF_8));
+                if (!change.apply(text)) {
+                    return false;
+                }
+                String content = text.apply();
+                check(content);
+                write(content);
+                return true;
+            } finally {
+                try {
+                    Files.deleteIfExists(lockFile);
+                } finally {
+                    channel.close();
+                }
+            }
+        } catch (NoSuchFileException e) {
+            throw new IOException("Workflow file does not exist", e);
+        } catch (YAMLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lock the lock file, which the caller deletes again before closing the returned channel.
+     * <p>
+     * The lock file is deleted while it is still locked, so an edit that was waiting may end up holding the lock of a
+     * deleted file while another edit locks the file created since. Each edit therefore writes its own token into the
+     * file it locked and only goes ahead once it reads the token back through the path of the lock file, trying again
+     * otherwise. The lock covers a byte past the token, so the token can be read while the file is locked.
+     */
+    private static FileChannel lock(Path lockFile) throws IOException {
+        byte[] token = (ProcessHandle.current().pid() + " " + Thread.currentThread().threadId() + " "
+                + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+        while (true) {
+            FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                channel.lock(Long.MAX_VALUE - 1, 1, false);
+                channel.truncate(0);
+                channel.write(ByteBuffer.wrap(token), 0);
+                if (Arrays.equals(Files.readAllBytes(lockFile), token)) {
+                    return channel;
+                }
+            } catch (NoSuchFileException e) {
+                // Deleted by the edit that held the lock before
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Parse the edited content once more before it replaces the workflow file, so an edit can never leave behind a
+     * file that does not parse.
+     */
+    private static void check(String content) throws IOException {
+        try {
+            for (Event ignored : new Yaml(loaderOptions()).parse(new StringReader(content))) {
+                // Only the syntax is checked
+            }
+        } catch (YAMLException e) {
+            throw new IOException("The edit would leave the workflow file malformed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write the content to a temporary file next to the workflow file and rename it over the workflow file, so a
+     * reader sees either the old or the new file but never a partly written one.
+     */
+    private void write(String content) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                // The temporary file is only readable by its owner
+                Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(file));
+            } catch (UnsupportedOperationException ignored) {
+                // Not a POSIX file system, the permissions are inherited from the directory
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private interface Change {
+        /**
+         * @return whether the text was edited
+         */
+        boolean apply(Text text) throws IOException;
+    }
+
+    /**
+     * A node of the document, spanning from its start event to its end event. A scalar starts and ends with the same
+     * event, and the children of a mapping alternate between keys and values.
+     */
+    private static final class Node {
+
+        private final Event start;
+        private Event end;
+        private final List<Node> children = new ArrayList<>();
+
+        private Node(Event start) {
+            this.start = start;
+            this.end = start;
+        }
+
+        private boolean isSequence() {
+            return start.is(Event.ID.SequenceStart);
+        }
+
+        private boolean isMapping() {
+            return start.is(Event.ID.MappingStart);
+        }
+
+        private boolean isFlow() {
+            return start instanceof CollectionStartEvent collection && collection.isFlow();
+        }
+
+        private boolean is(String value) {
+            return start instanceof ScalarEvent scalar && scalar.getValue().equals(value);
+        }
+
+        /**
+         * @return the value of the key if this node is a mapping, or {@code null}
+         */
+        private Node get(String key) {
+            if (!isMapping()) {
+                return null;
+            }
+            for (int i = 0; i + 1 < children.size(); i += 2) {
+                if (children.get(i).is(key)) {
+                    return children.get(i + 1);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The nodes of the workflow file an edit may touch. The workflows are not kept, only the matching one and the
+     * last two, so scanning a large file takes little memory.
+     *
+     * @param root      the root mapping
+     * @param workflows the value of the workflows key, without its children, or {@code null} if there is none
+     * @param workflow  the first workflow with the mode, or {@code null} if there is none
+     * @param previous  the workflow before the last one, or {@code null} if there are fewer than two
+     * @param last      the last workflow, or {@code null} if there are none
+     */
+    private record Scan(Node root, Node workflows, Node workflow, Node previous, Node last) {
+    }
+
+    /**
+     * The content of the workflow file and the edits made to it, applied together once the change is complete.
+     */
+    private final class Text {
+
+        private final String content;
+        private final String newline;
+        // Without surrogate pairs the code point index of a parser mark is also its char index
+        private final boolean bmp;
+        private final List<Edit> edits = new ArrayList<>();
+
+        private Text(String content) {
+            this.content = content;
+            this.newline = content.contains("\r\n") ? "\r\n" : "\n";
+            this.bmp = content.codePoints().noneMatch(Character::isSupplementaryCodePoint);
+        }
+
+        /**
+         * Walk the parser events of the file, only building the nodes of the workflows one at a time.
+         */
+        private Scan scan(String mode) throws IOException {
+            Yaml yaml = new Yaml(loaderOptions());
+            Iterator<Event> events = yaml.parse(new StringReader(content)).iterator();
+            Event event = events.next();
+            while (!event.is(Event.ID.MappingStart)) {
+                if (event.is(Event.ID.StreamEnd) || event.is(Event.ID.Scalar) || event.is(Event.ID.SequenceStart)) {
+                    throw new IOException("The workflow file does not hold a mapping of workflows");
+                }
+                event = events.next();
+            }
+            Node root = new Node(event);
+            Node workflows = null;
+            Node workflow = null;
+            Node previous = null;
+            Node last = null;
+            Event key;
+            while ((key = events.next()).is(Event.ID.Scalar)) {
+                Node keyNode = new Node(key);
+                Event value = events.next();
+                Node valueNode;
+                if (workflows == null && keyNode.is(KEY_WORKFLOWS) && value.is(Event.ID.SequenceStart)) {
+                    valueNode = new Node(value);
+                    Event item;
+                    while (!(item = events.next()).is(Event.ID.SequenceEnd)) {
+                        Node node = read(events, item);
+                        Node itemMode = node.get(KEY_MODE);
+                        if (workflow == null && itemMode != null && itemMode.start instanceof ScalarEvent scalar
+                                && WorkflowIndex.fold(scalar.getValue()).equals(WorkflowIndex.fold(mode))) {
+                            workflow = node;
+                        }
+                        previous = last;
+                        last = node;
+                    }
+                    valueNode.end = item;
+                } else {
+                    valueNode = read(events, value);
+                }
+                if (keyNode.is(KEY_WORKFLOWS) && workflows == null) {
+                    workflows = valueNode;
+                }
+                root.children.add(keyNode);
+                root.children.add(valueNode);
+            }
+            root.end = key;
+            return new Scan(root, workflows, workflow, previous, last);
+        }
+
+        private Node read(Iterator<Event> events, Event start) {
+            Node node = new Node(start);
+            if (start.is(Event.ID.SequenceStart) || start.is(Event.ID.MappingStart)) {
+                Event event;
+                while (!(event = events.next()).is(Event.ID.SequenceEnd) && !event.is(Event.ID.MappingEnd)) {
+                    node.children.add(read(events, event));
+                }
+                node.end = event;
+            }
+            return node;
+        }
+
+        /**
+         * Add an item at the end of a sequence, keeping the layout of the items before it.
+         */
+        private void addItem(Node sequence, String blockItem, String flowItem) {
+            int size = sequence.children.size();
+            addItem(sequence, size > 1 ? sequence.children.get(size - 2) : null,
+                    size > 0 ? sequence.children.getLast() : null, blockItem, flowItem);
+        }
+
+        private void addItem(Node sequence, Node previous, Node last, String blockItem, String flowItem) {
+            if (!sequence.isFlow()) {
+                // A block sequence always has an item
+                int start = start(last);
+                String prefix = content.substring(lineStart(start), start);
+                if (!prefix.matches(" *- +")) {
+                    prefix = " ".repeat(Math.max(0, column(start) - 2)) + "- ";
+                }
+                insertLine(contentEnd(last), prefix + blockItem);
+            } else if (last == null) {
+                replace(start(sequence), end(sequence), "[" + flowItem + "]");
+            } else if (previous == null) {
+                String space = content.substring(start(sequence) + 1, start(last));
+                insert(contentEnd(last), "," + (space.isEmpty() ? " " : space) + flowItem);
+            } else {
+                insert(contentEnd(last), content.substring(contentEnd(previous), start(last)) + flowItem);
+            }
+        }
+
+        /**
+         * Add a key holding a sequence of one item at the end of a mapping.
+         */
+        private void addEntry(Node mapping, String key, String blockItem, String flowItem) {
+            if (!mapping.isFlow()) {
+                String indent = " ".repeat(column(start(mapping.children.getFirst())));
+                insertLine(contentEnd(mapping), indent + key + ":" + newline + indent + "- " + blockItem);
+            } else if (mapping.children.isEmpty()) {
+                replace(start(mapping), end(mapping), "{" + key(key) + ": [" + flowItem + "]}");
+            } else {
+                String space = content.substring(start(mapping) + 1, start(mapping.children.getFirst()));
+                insert(contentEnd(mapping.children.getLast()), "," + (space.isEmpty() ? " " : space) + key(key)
+                        + ": [" + flowItem + "]");
+            }
+        }
+
+        /**
+         * Replace a value that is not a sequence, such as an empty value, with a sequence of one item.
+         */
+        private void setSequence(Node mapping, Node value, String blockItem, String flowItem) {
+            if (!mapping.isFlow() && value.start instanceof ScalarEvent scalar && scalar.getValue().isEmpty()) {
+                Node key = mapping.children.get(mapping.children.indexOf(value) - 1);
+                insertLine(contentEnd(key), " ".repeat(column(start(key))) + "- " + blockItem);
+            } else {
+                replace(start(value), contentEnd(value), "[" + flowItem + "]");
+            }
+        }
+
+        /**
+         * Remove every item of a sequence equal to the value.
+         */
+        private void removeItems(Node mapping, String key, Node sequence, String value) {
+            List<Node> kept = sequence.children.stream().filter(item -> !item.is(value)).toList();
+            if (sequence.isFlow()) {
+                List<Node> items = sequence.children;
+                String separator = items.size() > 1
+                        ? content.substring(contentEnd(items.getFirst()), start(items.get(1)))
+                        : ", ";
+                StringBuilder builder = new StringBuilder("[");
+                if (!kept.isEmpty()) {
+                    builder.append(content, start(sequence) + 1, start(items.getFirst()));
+                    for (int i = 0; i < kept.size(); i++) {
+                        builder.append(i > 0 ? separator : "").append(content, start(kept.get(i)),
+                                contentEnd(kept.get(i)));
+                    }
+                    builder.append(content, contentEnd(items.getLast()), end(sequence) - 1);
+                }
+                replace(start(sequence), end(sequence), builder.append(']').toString());
+                return;
+            }
+            Node keyNode = mapping.children.get(mapping.children.indexOf(sequence) - 1);
+            int keyLine = lineStart(start(keyNode));
+            if (kept.isEmpty() && content.substring(keyLine, start(keyNode)).isBlank()) {
+                // Drop the key along with its last item
+                replace(keyLine, lineEnd(contentEnd(sequence)), "");
+                return;
+            }
+            for (Node item : sequence.children) {
+                if (item.is(value)) {
+                    replace(lineStart(start(item)), lineEnd(contentEnd(item)), "");
+                }
+            }
+        }
+
+        /**
+         * @return a workflow with only a mode, as a block mapping or a flow mapping
+         */
+        private String workflow(String mode, boolean flow) {
+            return flow
+                    ? "{" + key(KEY_MODE) + ": " + scalar(mode, true) + "}"
+                    : KEY_MODE + ": " + scalar(mode, false);
+        }
+
+        private String key(String key) {
+            return json ? quote(key) : key;
+        }
+
+        /**
+         * Write a value as a plain scalar where SnakeYAML would, quoting it otherwise. A value in a flow collection
+         * or a JSON file is always double quoted, which reads the same in JSON and YAML.
+         */
+        private String scalar(String value, boolean flow) {
+            if (json || flow) {
+                return quote(value);
+            }
+            DumperOptions options = new DumperOptions();
+            options.setSplitLines(false);
+            String dumped = new Yaml(options).dump(value).stripTrailing();
+            return dumped.contains("\n") ? quote(value) : dumped;
+        }
+
+        private void insertLine(int after, String line) {
+            int end = lineEnd(after);
+            if (end == content.length() && !content.endsWith("\n")) {
+                insert(end, newline + line);
+            } else {
+                insert(end, line + newline);
+            }
+        }
+
+        private void insert(int offset, String text) {
+            replace(offset, offset, text);
+        }
+
+        private void replace(int start, int end, String text) {
+            edits.add(new Edit(start, end, text));
+        }
+
+        /**
+         * @return the content with the edits applied, from the last one to the first so each offset stays valid
+         */
+        private String apply() {
+            StringBuilder builder = new StringBuilder(content);
+            edits.stream()
+                    .sorted(Comparator.comparingInt(Edit::start).reversed())
+                    .forEach(edit -> builder.replace(edit.start(), edit.end(), edit.text()));
+            return builder.toString();
+        }
+
+        private int start(Node node) {
+            return offset(node.start.getStartMark().getIndex());
+        }
+
+        private int end(Node node) {
+            return offset(node.end.getEndMark().getIndex());
+        }
+
+        /**
+         * @return the end of the last character written for the node. The end event of a block collection is only
+         * reported at the next token, which may be lines further down, so the end of its last child is used instead.
+         */
+        private int contentEnd(Node node) {
+            if ((node.isSequence() || node.isMapping()) && !node.isFlow() && !node.children.isEmpty()) {
+                return contentEnd(node.children.getLast());
+            }
+            return end(node);
+        }
+
+        private int offset(int index) {
+            return bmp ? index : content.offsetByCodePoints(0, index);
+        }
+
+        private int column(int offset) {
+            return offset - lineStart(offset);
+        }
+
+        private int lineStart(int offset) {
+            return content.lastIndexOf('\n', offset - 1) + 1;
+        }
+
+        /**
+         * @return the offset after the line break ending the line of the offset, or the end of the content
+         */
+        private int lineEnd(int offset) {
+            int end = content.indexOf('\n', offset);
+            return end < 0 ? content.length() : end + 1;
+        }
+    }
+
+    private record Edit(int start, int end, String text) {
+    }
+
+    private static LoaderOptions loaderOptions() {
+        LoaderOptions options = new LoaderOptions();
+        options.setCodePointLimit(Integer.MAX_VALUE);
+        return options;
+    }
+
+    /**
+     * @return the value as a double quoted JSON string
+     */
+    private static String quote(String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
@@ -25,66 +25,368 @@
 package com.antonbondoc.handler;
 
 
+import com.antonbondoc.launcher.Launcher;
+import com.antonbondoc.launcher.Launchers;
+import com.antonbondoc.model.LaunchResult;
 import com.antonbondoc.model.Workflow;
 
-import java.awt.*;
 import java.io.IOException;
-import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Handler functions for workflow requests.
+ * <p>
+ * Every tool is launched on its own virtual thread, with at most {@code parallelism} launches in flight at once. A tool
+ * waiting for its dependencies does not hold one of the launch slots.
  */
 public class WorkflowHandler {
 
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    private final int parallelism;
+    private final Launcher appLauncher;
+    private final Launcher websiteLauncher;
+    private final BrowserCommand browser;
+    private final boolean relaunchRunning;
+    private final LaunchHistory history;
+    private final WebsiteThrottle throttle;
+
+    public WorkflowHandler() {
+        this(DEFAULT_PARALLELISM);
+    }
+
+    public WorkflowHandler(int parallelism) {
+        this(parallelism, null, false);
+    }
+
+    /**
+     * @param parallelism     the maximum number of launches in flight at once
+     * @param browser         the browser command to open the websites in batches with, or {@code null} to open each
+     *                        website through the default browser of the desktop
+     * @param relaunchRunning whether to launch applications that are already running again
+     */
+    public WorkflowHandler(int parallelism, BrowserCommand browser, boolean relaunchRunning) {
+        this(parallelism, Launchers.forApps(), Launchers.forWebsites(Launchers.AUTO), browser, relaunchRunning, null);
+    }
+
+    WorkflowHandler(int parallelism, Launcher appLauncher, Launcher websiteLauncher) {
+        this(parallelism, appLauncher, websiteLauncher, null, true, null);
+    }
+
+    /**
+     * @param parallelism     the maximum number of launches in flight at once
+     * @param appLauncher     the backend launching the applications
+     * @param websiteLauncher the backend opening the websites that are not opened through the browser command
+     * @param browser         the browser command to open the websites in batches with, or {@code null}
+     * @param relaunchRunning whether to launch applications that are already running again
+     * @param history         the launch history ordering the launches slowest first, or {@code null} to launch in
+     *                        workflow order
+     */
+    public WorkflowHandler(int parallelism, Launcher appLauncher, Launcher websiteLauncher, BrowserCommand browser,
+                           boolean relaunchRunning, LaunchHistory history) {
+        this(parallelism, appLauncher, websiteLauncher, browser, relaunchRunning, history, null);
+    }
+
+    /**
+     * @param parallelism     the maximum number of launches in flight at once
+     * @param appLauncher     the backend launching the applications
+     * @param websiteLauncher the backend opening the websites that are not opened through the browser command
+     * @param browser         the browser command to open the websites in batches with, or {@code null}
+     * @param relaunchRunning whether to launch applications that are already running again
+     * @param history         the launch history ordering the launches slowest first, or {@code null}
+     * @param throttle        the throttle pacing the websites, or {@code null} to open them as fast as they are ready
+     */
+    public WorkflowHandler(int parallelism, Launcher appLauncher, Launcher websiteLauncher, BrowserCommand browser,
+                           boolean relaunchRunning, LaunchHistory history, WebsiteThrottle throttle) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+        this.appLauncher = appLauncher;
+        this.websiteLauncher = websiteLauncher;
+        this.browser = browser;
+        this.relaunchRunning = relaunchRunning;
+        this.history = history;
+        this.throttle = throttle;
+    }
+
     /**
-     * Opens all the websites and applications of the given Antika workflow.
+     * @return the throttle pacing the websites, or {@code null} if the websites are not throttled
+     */
+    public WebsiteThrottle getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * Plan the launches of the given workflow without launching anything.
      *
      * @param workflow the chosen workflow
+     * @return the order the tools would be launched in and the expected time it takes
      */
-    public void openTools(Workflow workflow) {
-        openApplications(workflow.getApps());
-        openWebsites(workflow.getWebsites());
+    public LaunchPlan plan(Workflow workflow) {
+        return LaunchPlan.of(LaunchGraph.compile(workflow), history, parallelism);
     }
 
     /**
-     * Opens the applications from the given list of absolute paths.
+     * Opens all the websites and applications of the given Antika workflow concurrently.
+     * <p>
+     * The launches start in the order of the {@link LaunchPlan}. Tools without dependencies are launched right away,
+     * while a tool with dependencies is launched as soon as every tool it depends on is ready. Returns only after every
+     * launch has been dispatched.
      *
-     * @param paths the absolute paths associated to the given workflow
+     * @param workflow the chosen workflow
+     * @return the outcome of each launch, in workflow order with applications first
      */
-    private void openApplications(List<String> paths) {
-        if (paths == null) {
+    public List<LaunchResult> openTools(Workflow workflow) {
+        if (workflow.getApps() == null) {
             System.out.println("[WARN] There are no applications to open");
-            return;
         }
-        for (String app : paths) {
+        if (workflow.getWebsites() == null) {
+            System.out.println("[WARN] There are no urls to open");
+        }
+        return launchAll(LaunchGraph.compile(workflow));
+    }
+
+    /**
+     * Terminates the given processes and their descendants concurrently, killing the ones that do not exit in time.
+     *
+     * @param running the processes to terminate, by the tool as written in the workflow file
+     * @param timeout how long a process may take to exit after being asked to
+     */
+    public void closeTools(Map<String, ProcessHandle> running, Duration timeout) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map.Entry<String, ProcessHandle> entry : running.entrySet()) {
+                executor.submit(() -> close(entry.getKey(), entry.getValue(), timeout));
+            }
+        }
+    }
+
+    private static void close(String tool, ProcessHandle process, Duration timeout) {
+        List<ProcessHandle> tree = new ArrayList<>(process.descendants().toList());
+        tree.add(process);
+        tree.forEach(ProcessHandle::destroy);
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean killed = false;
+        for (ProcessHandle handle : tree) {
             try {
-                ProcessBuilder process = new ProcessBuilder(app);
-                process.start();
-            } catch (IOException ignored) {
+                handle.onExit().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                killed |= handle.destroyForcibly();
+            } catch (ExecutionException e) {
+                // onExit never completes exceptionally
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (killed) {
+            System.out.printf("[WARN] '%s' did not exit in time and was killed%n", tool);
+        }
+    }
+
+    private List<LaunchResult> launchAll(LaunchGraph graph) {
+        List<LaunchGraph.Node> nodes = graph.getNodes();
+        List<LaunchGraph.Node> order = history == null
+                ? nodes
+                : LaunchPlan.of(graph, history, parallelism).getSteps().stream().map(LaunchPlan.Step::node).toList();
+        Map<LaunchGraph.Node, CompletableFuture<Boolean>> ready = new HashMap<>();
+        for (LaunchGraph.Node node : nodes) {
+            ready.put(node, new CompletableFuture<>());
+        }
+        ProcessSnapshot running = relaunchRunning || nodes.stream().noneMatch(n -> n.getType() == LaunchResult.Type.APP)
+                ? null
+                : ProcessSnapshot.take();
+        List<LaunchGraph.Node> batched = new ArrayList<>();
+        // Fair, so the launch slots are handed out in plan order
+        Semaphore permits = new Semaphore(parallelism, true);
+        Map<LaunchGraph.Node, Future<LaunchResult>> futures = new HashMap<>();
+        List<Future<List<LaunchResult>>> batchFutures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (LaunchGraph.Node node : order) {
+                if (isBatched(node)) {
+                    batched.add(node);
+                    continue;
+                }
+                futures.put(node, executor.submit(() -> {
+                    try {
+                        return launchWhenReady(node, ready, permits, running);
+                    } finally {
+                        // Never leave the dependents waiting, whatever happened to this launch
+                        ready.get(node).complete(false);
+                    }
+                }));
+            }
+            if (!batched.isEmpty()) {
+                for (List<LaunchGraph.Node> chunk : browser.chunk(batched)) {
+                    batchFutures.add(executor.submit(() -> throttled(null, chunk.size(), () -> {
+                        permits.acquire();
+                        try {
+                            return openWebsites(chunk);
+                        } finally {
+                            permits.release();
+                        }
+                    })));
+                }
+            }
+        }
+
+        Map<String, LaunchResult> batchResults = new HashMap<>();
+        for (Future<List<LaunchResult>> future : batchFutures) {
+            for (LaunchResult result : future.resultNow()) {
+                batchResults.put(result.tool(), result);
+                if (throttle != null) {
+                    throttle.record(result);
+                }
             }
         }
+        List<LaunchResult> results = new ArrayList<>(nodes.size());
+        for (LaunchGraph.Node node : nodes) {
+            Future<LaunchResult> future = futures.get(node);
+            results.add(future != null ? future.resultNow() : batchResults.get(node.getTool()));
+        }
+        return results;
+    }
+
+    /**
+     * Websites outside the dependency graph are handed to the browser command together when one is configured.
+     */
+    private boolean isBatched(LaunchGraph.Node node) {
+        return browser != null
+                && node.getType() == LaunchResult.Type.WEBSITE
+                && node.getDependencies().isEmpty()
+                && !node.hasDependents();
     }
 
     /**
-     * Opens the websites from the given list using the default browser.
+     * Opens the websites in a single process of the browser command.
      *
-     * @param urls the websites associated to the given workflow
+     * @param websites the websites to open together
+     * @return the outcome of each website
      */
-    private void openWebsites(List<String> urls) {
-        if (urls == null) {
-            System.out.println("[WARN] There are no urls to open");
-            return;
+    private List<LaunchResult> openWebsites(List<LaunchGraph.Node> websites) {
+        long start = System.nanoTime();
+        List<LaunchResult> results = new ArrayList<>(websites.size());
+        List<LaunchGraph.Node> opened = new ArrayList<>(websites.size());
+        List<String> command = new ArrayList<>(browser.command());
+        for (LaunchGraph.Node website : websites) {
+            if (website.getProblem() != null) {
+                results.add(LaunchResult.failure(LaunchResult.Type.WEBSITE, website.getTool(), website.getProblem(),
+                        Duration.ZERO));
+            } else {
+                opened.add(website);
+                command.add(website.getTarget());
+            }
         }
-        Desktop desktop = Desktop.getDesktop();
-        for (String url : urls) {
-            try {
-                desktop.browse(new URI(url));
-            } catch (IOException | URISyntaxException ignored) {
-                System.err.printf("'%s' has an invalid URI syntax", url);
+        if (opened.isEmpty()) {
+            return results;
+        }
+        try {
+            // Nothing reads the output of the browser, so a full pipe must not block it
+            ProcessHandle process = new ProcessBuilder(command)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start()
+                    .toHandle();
+            for (LaunchGraph.Node website : opened) {
+                results.add(LaunchResult.success(LaunchResult.Type.WEBSITE, website.getTool(), process, since(start)));
+            }
+        } catch (IOException e) {
+            for (LaunchGraph.Node website : opened) {
+                results.add(LaunchResult.failure(LaunchResult.Type.WEBSITE, website.getTool(), reason(e),
+                        since(start)));
             }
         }
+        return results;
+    }
+
+    private LaunchResult launchWhenReady(LaunchGraph.Node node, Map<LaunchGraph.Node, CompletableFuture<Boolean>> ready,
+                                         Semaphore permits, ProcessSnapshot running) throws InterruptedException {
+        for (LaunchGraph.Node dependency : node.getDependencies()) {
+            if (!ready.get(dependency).join()) {
+                String error = String.format("'%s' is not ready", dependency.getTool());
+                return LaunchResult.failure(node.getType(), node.getTool(), error, Duration.ZERO);
+            }
+        }
+
+        if (node.getProblem() != null) {
+            return LaunchResult.failure(node.getType(), node.getTool(), node.getProblem(), Duration.ZERO);
+        }
+        Optional<ProcessHandle> process = running != null && node.getType() == LaunchResult.Type.APP
+                ? running.find(node.getTarget())
+                : Optional.empty();
+        LaunchResult result;
+        if (process.isPresent()) {
+            result = LaunchResult.skipped(node.getType(), node.getTool(), process.get());
+        } else if (node.getType() == LaunchResult.Type.WEBSITE && throttle != null) {
+            result = throttle.dispatch(node.getTarget(), 1, () -> launchWithPermit(node, websiteLauncher, permits));
+            throttle.record(result);
+        } else {
+            result = launchWithPermit(node, node.getType() == LaunchResult.Type.APP ? appLauncher : websiteLauncher,
+                    permits);
+        }
+
+        boolean isReady = result.success();
+        if (isReady && node.hasDependents() && node.getReadiness() != null) {
+            isReady = ReadinessProbe.await(node.getReadiness(), result.process());
+        }
+        ready.get(node).complete(isReady);
+        return result;
+    }
+
+    private static LaunchResult launchWithPermit(LaunchGraph.Node node, Launcher launcher, Semaphore permits)
+            throws InterruptedException {
+        permits.acquire();
+        try {
+            return launch(node, launcher);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Run the dispatch through the throttle, if there is one.
+     */
+    private <T> T throttled(String url, int websites, WebsiteThrottle.Dispatch<T> dispatch)
+            throws InterruptedException {
+        return throttle != null ? throttle.dispatch(url, websites, dispatch) : dispatch.call();
+    }
+
+    /**
+     * Launch the resolved target of the tool, reporting the outcome under the tool as written in the workflow file.
+     */
+    private static LaunchResult launch(LaunchGraph.Node node, Launcher launcher) {
+        LaunchResult.Type type = node.getType();
+        long start = System.nanoTime();
+        try {
+            ProcessHandle process = launcher.launch(node.getTarget());
+            return LaunchResult.success(type, node.getTool(), process, since(start));
+        } catch (URISyntaxException e) {
+            return LaunchResult.failure(type, node.getTool(), "invalid URI syntax", since(start));
+        } catch (IOException | UnsupportedOperationException e) {
+            return LaunchResult.failure(type, node.getTool(), reason(e), since(start));
+        }
+    }
+
+    private static Duration since(long start) {
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private static String reason(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
     }
 
 }
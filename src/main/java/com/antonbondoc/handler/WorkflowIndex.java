@@ -0,0 +1,237 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.Workflow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A case-insensitive index over the workflow modes.
+ * <p>
+ * An exact lookup is a single hash lookup of the case-folded mode, while prefix lookups and suggestions for a mistyped
+ * mode go through the sorted case-folded modes. Both point at their workflows by position, so a
+ * {@link CompactWorkflows} list is only expanded for the workflow found.
+ * A workflow found in a compact list is kept, so every lookup of its mode returns the same workflow and its launch graph
+ * is only compiled once for as long as the index is in use.
+ */
+public class WorkflowIndex {
+
+    private static final int MAX_SUGGESTION_DISTANCE = 3;
+
+    private final List<Workflow> workflows;
+    private final Map<String, Integer> byMode;
+    private final String[] sortedKeys;
+    private final int[] sortedIndexes;
+    private final int maxKeyLength;
+    private final Map<Integer, Workflow> found = new ConcurrentHashMap<>();
+
+    public WorkflowIndex(List<Workflow> workflows) {
+        this.workflows = workflows;
+        this.byMode = HashMap.newHashMap(workflows.size());
+        for (int i = 0; i < workflows.size(); i++) {
+            String mode = modeOf(workflows, i);
+            if (mode != null) {
+                // The first workflow of a mode wins, the same as the file order lookup
+                byMode.putIfAbsent(fold(mode), i);
+            }
+        }
+        this.sortedKeys = byMode.keySet().toArray(String[]::new);
+        Arrays.sort(sortedKeys);
+        this.sortedIndexes = new int[sortedKeys.length];
+        for (int i = 0; i < sortedKeys.length; i++) {
+            sortedIndexes[i] = byMode.get(sortedKeys[i]);
+        }
+        this.maxKeyLength = Arrays.stream(sortedKeys).mapToInt(String::length).max().orElse(0);
+    }
+
+    /**
+     * @return the workflows this index was built from
+     */
+    public List<Workflow> getWorkflows() {
+        return workflows;
+    }
+
+    /**
+     * Return the workflow with the given mode, ignoring case.
+     *
+     * @param mode the selected workflow mode
+     * @return the matching workflow, if any, which is shared with every other lookup and must not be changed
+     */
+    public Optional<Workflow> find(String mode) {
+        Integer index = byMode.get(fold(mode));
+        return index != null ? Optional.of(workflow(index)) : Optional.empty();
+    }
+
+    private Workflow workflow(int index) {
+        if (workflows instanceof CompactWorkflows) {
+            // A compact list creates a new workflow on every call
+            return found.computeIfAbsent(index, workflows::get);
+        }
+        return workflows.get(index);
+    }
+
+    /**
+     * Return the mode of a workflow without creating the workflow when it is stored compactly.
+     *
+     * @param index the position of the workflow
+     * @return the workflow mode, or {@code null} if it has none
+     */
+    public String getMode(int index) {
+        return modeOf(workflows, index);
+    }
+
+    private static String modeOf(List<Workflow> workflows, int index) {
+        if (workflows instanceof CompactWorkflows compact) {
+            return compact.getMode(index);
+        }
+        Workflow workflow = workflows.get(index);
+        return workflow != null ? workflow.getMode() : null;
+    }
+
+    /**
+     * Return the modes starting with the given prefix, ignoring case, in sorted order.
+     *
+     * @param prefix the start of a workflow mode
+     * @param limit  the maximum number of modes to return
+     * @return the matching workflow modes
+     */
+    public List<String> findByPrefix(String prefix, int limit) {
+        String key = fold(prefix);
+        int idx = Arrays.binarySearch(sortedKeys, key);
+        if (idx < 0) {
+            idx = -idx - 1;
+        }
+        List<String> modes = new ArrayList<>();
+        for (; idx < sortedKeys.length && modes.size() < limit && sortedKeys[idx].startsWith(key); idx++) {
+            modes.add(getMode(sortedIndexes[idx]));
+        }
+        return modes;
+    }
+
+    /**
+     * Return the modes closest to the given mistyped mode, ranked by edit distance.
+     * <p>
+     * The sorted modes are walked as an implicit trie: the edit distance rows of a shared prefix are reused by every
+     * mode starting with it, and the whole range of modes under a prefix is skipped once the prefix alone is further
+     * than the bound from the mistyped mode.
+     *
+     * @param mode  the mistyped workflow mode
+     * @param limit the maximum number of suggestions to return
+     * @return the suggested workflow modes, closest first
+     */
+    public List<String> suggest(String mode, int limit) {
+        String target = fold(mode);
+        int bound = Math.max(1, Math.min(MAX_SUGGESTION_DISTANCE, target.length() / 3));
+        int[][] rows = new int[maxKeyLength + 1][target.length() + 1];
+        for (int j = 0; j <= target.length(); j++) {
+            rows[0][j] = j;
+        }
+
+        List<Suggestion> matches = new ArrayList<>();
+        String previous = "";
+        int validRows = 0;
+        int idx = 0;
+        while (idx < sortedKeys.length) {
+            String key = sortedKeys[idx];
+            int depth = Math.min(commonPrefixLength(previous, key), validRows);
+            boolean pruned = false;
+            while (depth < key.length()) {
+                depth++;
+                if (fillRow(rows, depth, key.charAt(depth - 1), target) > bound) {
+                    pruned = true;
+                    break;
+                }
+            }
+            previous = key;
+            if (pruned) {
+                validRows = depth - 1;
+                idx = endOfPrefix(key.substring(0, depth), idx);
+            } else {
+                validRows = depth;
+                int distance = rows[depth][target.length()];
+                if (distance <= bound) {
+                    matches.add(new Suggestion(key, sortedIndexes[idx], distance));
+                }
+                idx++;
+            }
+        }
+        return matches.stream()
+                .sorted(Comparator.comparingInt(Suggestion::distance).thenComparing(Suggestion::key))
+                .limit(limit)
+                .map(s -> getMode(s.index()))
+                .toList();
+    }
+
+    /**
+     * Fill the edit distance row of the given trie depth from the row above it.
+     *
+     * @return the smallest value of the row
+     */
+    private static int fillRow(int[][] rows, int depth, char c, String target) {
+        int[] above = rows[depth - 1];
+        int[] row = rows[depth];
+        row[0] = depth;
+        int rowMin = row[0];
+        for (int j = 1; j <= target.length(); j++) {
+            int cost = target.charAt(j - 1) == c ? 0 : 1;
+            row[j] = Math.min(Math.min(row[j - 1] + 1, above[j] + 1), above[j - 1] + cost);
+            rowMin = Math.min(rowMin, row[j]);
+        }
+        return rowMin;
+    }
+
+    /**
+     * @return the index of the first sorted key after {@code from} that does not start with the prefix
+     */
+    private int endOfPrefix(String prefix, int from) {
+        int idx = Arrays.binarySearch(sortedKeys, from, sortedKeys.length, prefix + Character.MAX_VALUE);
+        return idx < 0 ? -idx - 1 : idx;
+    }
+
+    private static int commonPrefixLength(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    static String fold(String mode) {
+        return mode.toLowerCase(Locale.ROOT);
+    }
+
+    private record Suggestion(String key, int index, int distance) {
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.launcher.Executables;
+import com.antonbondoc.model.ToolDependency;
+import com.antonbondoc.model.Workflow;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Merges several workflows into one, so they are opened through a single launch.
+ * <p>
+ * A tool listed by more than one workflow is opened once. Applications are compared by the executable they resolve
+ * to and websites by their normalized URI, and the tool keeps the spelling of the first workflow listing it. The
+ * dependencies of every workflow are kept, referring to the tools by that spelling.
+ */
+public final class WorkflowMerger {
+
+    private WorkflowMerger() {
+    }
+
+    /**
+     * @param workflows the workflows to open together
+     * @return a workflow with the tools of every given workflow, named after all of their modes
+     */
+    public static Workflow merge(List<Workflow> workflows) {
+        if (workflows.size() == 1) {
+            return workflows.getFirst();
+        }
+        Map<String, String> spellings = new HashMap<>();
+        Map<String, String> apps = new LinkedHashMap<>();
+        Map<String, String> websites = new LinkedHashMap<>();
+        Map<String, ToolDependency> dependencies = new LinkedHashMap<>();
+        List<String> modes = new ArrayList<>(workflows.size());
+        boolean hasApps = false;
+        boolean hasWebsites = false;
+        for (Workflow workflow : workflows) {
+            modes.add(workflow.getMode());
+            hasApps |= addTools(apps, spellings, workflow.getApps(), WorkflowMerger::appKey);
+            hasWebsites |= addTools(websites, spellings, workflow.getWebsites(), WorkflowMerger::websiteKey);
+        }
+        for (Workflow workflow : workflows) {
+            if (workflow.getDependencies() == null) {
+                continue;
+            }
+            for (ToolDependency dependency : workflow.getDependencies()) {
+                String tool = spellings.getOrDefault(dependency.getTool(), dependency.getTool());
+                List<String> dependsOn = null;
+                if (dependency.getDependsOn() != null) {
+                    dependsOn = new ArrayList<>(dependency.getDependsOn().size());
+                    for (String required : dependency.getDependsOn()) {
+                        dependsOn.add(spellings.getOrDefault(required, required));
+                    }
+                }
+                ToolDependency existing = dependencies.get(tool);
+                if (existing == null) {
+                    dependencies.put(tool, new ToolDependency(tool, dependsOn, dependency.getReadiness()));
+                    continue;
+                }
+                // The same tool waits for the dependencies of every workflow
+                if (dependsOn != null) {
+                    List<String> union = existing.getDependsOn() != null
+                            ? new ArrayList<>(existing.getDependsOn())
+                            : new ArrayList<>();
+                    dependsOn.stream().filter(required -> !union.contains(required)).forEach(union::add);
+                    existing.setDependsOn(union);
+                }
+                if (existing.getReadiness() == null) {
+                    existing.setReadiness(dependency.getReadiness());
+                }
+            }
+        }
+
+        Workflow merged = new Workflow(String.join(",", modes),
+                hasApps ? new ArrayList<>(apps.values()) : null,
+                hasWebsites ? new ArrayList<>(websites.values()) : null);
+        merged.setDependencies(dependencies.isEmpty() ? null : new ArrayList<>(dependencies.values()));
+        return merged;
+    }
+
+    /**
+     * Add the tools not added yet, recording the spelling each tool is kept under.
+     *
+     * @return whether the workflow lists this kind of tool at all
+     */
+    private static boolean addTools(Map<String, String> byKey, Map<String, String> spellings, List<String> tools,
+                                    UnaryOperator<String> key) {
+        if (tools == null) {
+            return false;
+        }
+        for (String tool : tools) {
+            String kept = byKey.computeIfAbsent(key.apply(tool), ignored -> tool);
+            spellings.putIfAbsent(tool, kept);
+        }
+        return true;
+    }
+
+    /**
+     * @return the real path of the executable of the application, or its normalized path if it does not resolve
+     */
+    static String appKey(String app) {
+        return Executables.resolve(app)
+                .map(Path::toString)
+                .orElseGet(() -> {
+                    try {
+                        return Paths.get(app).normalize().toString();
+                    } catch (InvalidPathException e) {
+                        return app;
+                    }
+                });
+    }
+
+    /**
+     * @return the URI of the website with its scheme and host in lower case, a default port dropped and its path
+     * normalized, or the website as written if it is not a valid URI. A website written without its scheme is taken
+     * as https, as it is launched.
+     */
+    static String websiteKey(String url) {
+        try {
+            URI uri = new URI(url.strip());
+            if (uri.getScheme() == null) {
+                uri = new URI("https://" + url.strip());
+            }
+            uri = uri.normalize();
+            if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+                return uri.toString();
+            }
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            int port = uri.getPort();
+            if ((port == 80 && scheme.equals("http")) || (port == 443 && scheme.equals("https"))) {
+                port = -1;
+            }
+            String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : null;
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            StringBuilder key = new StringBuilder(scheme).append("://");
+            if (uri.getRawUserInfo() != null) {
+                key.append(uri.getRawUserInfo()).append('@');
+            }
+            key.append(host != null ? host : uri.getRawAuthority());
+            if (port >= 0) {
+                key.append(':').append(port);
+            }
+            key.append(path);
+            if (uri.getRawQuery() != null) {
+                key.append('?').append(uri.getRawQuery());
+            }
+            if (uri.getRawFragment() != null) {
+                key.append('#').append(uri.getRawFragment());
+            }
+            return key.toString();
+        } catch (URISyntaxException e) {
+            return url;
+        }
+    }
+}
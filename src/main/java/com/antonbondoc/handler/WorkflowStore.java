@@ -0,0 +1,193 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.Workflow;
+import com.antonbondoc.telemetry.Telemetry;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * A file handler that keeps the workflows in memory and reloads them when the workflow file changes.
+ * <p>
+ * The workflows are loaded once and held as an immutable index. A background thread watches the directories of the
+ * workflow files and, on a change, reloads it through the compiled cache, so a touched but unchanged file is not parsed
+ * again. The new index is swapped in with a single volatile write: readers never wait for a reload and every read sees
+ * either the old or the new set of workflows as a whole. A reload that fails keeps the previous workflows.
+ */
+public class WorkflowStore implements FileHandler, AutoCloseable {
+
+    /**
+     * How long the workflow file has to stay quiet before it is reloaded, since editors often save in several writes.
+     */
+    private static final long SETTLE_MILLIS = 50;
+
+    private final FileHandler fileHandler;
+    private final Set<Path> workflowFiles;
+    private final WatchService watchService;
+
+    private volatile WorkflowIndex snapshot;
+
+    /**
+     * Load the workflows of the given handler and start watching its workflow file.
+     *
+     * @param fileHandler the handler reading the workflow file
+     * @throws IOException if the workflow file cannot be read or watched
+     */
+    public WorkflowStore(FileHandler fileHandler) throws IOException {
+        this.fileHandler = fileHandler;
+        this.workflowFiles = new HashSet<>();
+        for (Path workflowFile : fileHandler.getWorkflowFiles()) {
+            workflowFiles.add(workflowFile.toAbsolutePath());
+        }
+        this.snapshot = fileHandler.readWorkflowIndex();
+        this.watchService = FileSystems.getDefault().newWatchService();
+        Set<Path> directories = new HashSet<>();
+        for (Path workflowFile : workflowFiles) {
+            Path directory = workflowFile.getParent();
+            // A directory created later is not watched
+            if (Files.isDirectory(directory) && directories.add(directory)) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+        Thread.ofPlatform()
+                .name("antika-workflow-watcher")
+                .daemon()
+                .start(this::watch);
+    }
+
+    @Override
+    public boolean forEachWorkflowMode(Predicate<String> action) {
+        WorkflowIndex index = snapshot;
+        for (int i = 0; i < index.getWorkflows().size(); i++) {
+            if (index.getMode(i) != null && !action.test(index.getMode(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<Workflow> findWorkflow(String mode) {
+        WorkflowIndex index = snapshot;
+        return Telemetry.time(Telemetry.PHASE_LOOKUP, () -> index.find(mode));
+    }
+
+    @Override
+    public WorkflowIndex getWorkflowIndex() {
+        return snapshot;
+    }
+
+    @Override
+    public Path getWorkflowFile() {
+        return fileHandler.getWorkflowFile();
+    }
+
+    @Override
+    public Path getWorkflowFile(String mode) {
+        return fileHandler.getWorkflowFile(mode);
+    }
+
+    @Override
+    public List<Path> getWorkflowFiles() {
+        return fileHandler.getWorkflowFiles();
+    }
+
+    @Override
+    public WorkflowIndex readWorkflowIndex() {
+        return snapshot;
+    }
+
+    @Override
+    public void rebuildCache() {
+        fileHandler.rebuildCache();
+        reload();
+    }
+
+    @Override
+    public void createWorkflowFile() {
+        fileHandler.createWorkflowFile();
+    }
+
+    /**
+     * Stop watching the workflow file. The last loaded workflows stay readable.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                boolean changed = isWorkflowFileChanged(watchService.take());
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= isWorkflowFileChanged(key);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // The store was closed
+        }
+    }
+
+    private boolean isWorkflowFileChanged(WatchKey key) {
+        Path directory = (Path) key.watchable();
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || workflowFiles.contains(directory.resolve((Path) event.context()));
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        try {
+            snapshot = fileHandler.readWorkflowIndex();
+        } catch (IOException e) {
+            System.err.printf("[WARN] Keeping the previous workflows, unable to reload them: %s%n", e.getMessage());
+        }
+    }
+}
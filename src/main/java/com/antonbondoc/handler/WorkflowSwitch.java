@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.ToolDependency;
+import com.antonbondoc.model.Workflow;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * The difference between the workflow being left and the workflow being switched to.
+ * <p>
+ * Tools are compared the same way as {@link WorkflowMerger} does: applications by the executable they resolve to and
+ * websites by their normalized URI. Tools shared by both workflows are kept as they are.
+ */
+public class WorkflowSwitch {
+
+    private final Set<String> closedApps;
+    private final Workflow opened;
+
+    private WorkflowSwitch(Set<String> closedApps, Workflow opened) {
+        this.closedApps = closedApps;
+        this.opened = opened;
+    }
+
+    /**
+     * @param from the workflow being left
+     * @param to   the workflow being switched to
+     * @return the difference between the two workflows
+     */
+    public static WorkflowSwitch of(Workflow from, Workflow to) {
+        Set<String> fromApps = keys(from.getApps(), WorkflowMerger::appKey);
+        Set<String> toApps = keys(to.getApps(), WorkflowMerger::appKey);
+        Set<String> fromWebsites = keys(from.getWebsites(), WorkflowMerger::websiteKey);
+
+        Set<String> closedApps = new HashSet<>(fromApps);
+        closedApps.removeAll(toApps);
+
+        List<String> apps = subtract(to.getApps(), fromApps, WorkflowMerger::appKey);
+        List<String> websites = subtract(to.getWebsites(), fromWebsites, WorkflowMerger::websiteKey);
+        Set<String> openedTools = new HashSet<>(apps);
+        openedTools.addAll(websites);
+
+        Workflow opened = new Workflow(to.getMode(), apps, websites);
+        if (to.getDependencies() != null) {
+            List<ToolDependency> dependencies = new ArrayList<>();
+            for (ToolDependency dependency : to.getDependencies()) {
+                if (!openedTools.contains(dependency.getTool())) {
+                    continue;
+                }
+                // The shared tools are already running, so they are ready as far as the new tools are concerned
+                List<String> dependsOn = dependency.getDependsOn() == null ? null : dependency.getDependsOn().stream()
+                        .filter(openedTools::contains)
+                        .toList();
+                dependencies.add(new ToolDependency(dependency.getTool(), dependsOn, dependency.getReadiness()));
+            }
+            opened.setDependencies(dependencies);
+        }
+        return new WorkflowSwitch(closedApps, opened);
+    }
+
+    /**
+     * @param app an application of the workflow being left, as written in the workflow file
+     * @return whether the application is not part of the workflow being switched to
+     */
+    public boolean isClosed(String app) {
+        return closedApps.contains(WorkflowMerger.appKey(app));
+    }
+
+    /**
+     * @return a workflow of the tools that are only part of the workflow being switched to
+     */
+    public Workflow getOpened() {
+        return opened;
+    }
+
+    private static Set<String> keys(List<String> tools, UnaryOperator<String> key) {
+        Set<String> keys = new HashSet<>();
+        if (tools != null) {
+            tools.forEach(tool -> keys.add(key.apply(tool)));
+        }
+        return keys;
+    }
+
+    private static List<String> subtract(List<String> tools, Set<String> removed, UnaryOperator<String> key) {
+        List<String> remaining = new ArrayList<>();
+        if (tools != null) {
+            tools.stream().filter(tool -> !removed.contains(key.apply(tool))).forEach(remaining::add);
+        }
+        return remaining;
+    }
+}
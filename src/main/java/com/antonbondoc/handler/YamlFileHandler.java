@@ -24,63 +24,468 @@
 
 package com.antonbondoc.handler;
 
+import com.antonbondoc.model.Readiness;
+import com.antonbondoc.model.ToolDependency;
 import com.antonbondoc.model.Workflow;
 import com.antonbondoc.model.WorkflowWrapper;
+import com.antonbondoc.telemetry.Telemetry;
 import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.introspector.Property;
+import org.yaml.snakeyaml.nodes.NodeTuple;
 import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.representer.Representer;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
 
 public class YamlFileHandler implements FileHandler {
 
-    private final File WORKFLOW_FILE = Paths.get(CURRENT_DIRECTORY, "workflows.yml").toFile();
+    /**
+     * The properties of a workflow, any other key is rejected by the full parse.
+     */
+    private static final Set<String> WORKFLOW_PROPERTIES = Set.of("mode", "apps", "websites", "dependencies",
+            "extends");
 
-    private final Yaml yaml = new Yaml();
+    /**
+     * The plain scalars read as {@code null}, matched here so a lookup answered from the cache does not load the
+     * resolver of SnakeYAML.
+     */
+    private static final Set<String> NULL_SCALARS = Set.of("", "~", "null", "Null", "NULL");
+
+    private final File WORKFLOW_FILE;
+
+    private final WorkflowCache cache;
+
+    /**
+     * Created on first use, so requests answered from the compiled cache never load SnakeYAML.
+     */
+    private Yaml yaml;
+
+    private Yaml yaml() {
+        if (yaml == null) {
+            yaml = new Yaml(new Constructor(loaderOptions()), new SkipNullRepresenter(), new DumperOptions(),
+                    loaderOptions());
+        }
+        return yaml;
+    }
+
+    /**
+     * Generated workflow files can go well beyond the default 3 MB document limit of SnakeYAML.
+     */
+    private static LoaderOptions loaderOptions() {
+        LoaderOptions options = new LoaderOptions();
+        options.setCodePointLimit(Integer.MAX_VALUE);
+        return options;
+    }
+
+    /**
+     * Leaves the optional workflow settings out of the dumped file instead of writing them as {@code null}.
+     */
+    private static final class SkipNullRepresenter extends Representer {
+
+        private SkipNullRepresenter() {
+            super(new DumperOptions());
+        }
+
+        @Override
+        protected NodeTuple representJavaBeanProperty(Object bean, Property property, Object value, Tag customTag) {
+            return value == null ? null : super.representJavaBeanProperty(bean, property, value, customTag);
+        }
+    }
+
+    public YamlFileHandler() {
+        this(Paths.get(CURRENT_DIRECTORY));
+    }
+
+    /**
+     * @param directory the directory containing the workflows.yml file
+     */
+    public YamlFileHandler(Path directory) {
+        this.WORKFLOW_FILE = directory.resolve("workflows.yml").toFile();
+        this.cache = new WorkflowCache(WORKFLOW_FILE);
+    }
+
+    @Override
+    public boolean forEachWorkflowMode(Predicate<String> action) {
+        try (Reader reader = new FileReader(WORKFLOW_FILE)) {
+            Iterator<Event> events = yaml().parse(reader).iterator();
+            while (events.hasNext() && !events.next().is(Event.ID.MappingStart)) {
+                // Advance to the root mapping
+            }
+            while (events.hasNext()) {
+                Event key = events.next();
+                if (!key.is(Event.ID.Scalar)) {
+                    break;
+                }
+                if (!"workflows".equals(((ScalarEvent) key).getValue())) {
+                    skipNode(events, events.next());
+                    continue;
+                }
+                if (!events.next().is(Event.ID.SequenceStart)) {
+                    break;
+                }
+                Event item;
+                while (!(item = events.next()).is(Event.ID.SequenceEnd)) {
+                    if (!item.is(Event.ID.MappingStart)) {
+                        skipNode(events, item);
+                        continue;
+                    }
+                    String mode = readMode(events);
+                    if (mode != null && !action.test(mode)) {
+                        return false;
+                    }
+                }
+            }
+        } catch (IOException | YAMLException e) {
+            System.err.print(e.getMessage());
+            System.exit(-1);
+        }
+        return true;
+    }
+
+    /**
+     * Read the remaining events of a workflow mapping, skipping every value except its mode.
+     */
+    private String readMode(Iterator<Event> events) {
+        String mode = null;
+        Event key;
+        while ((key = events.next()).is(Event.ID.Scalar)) {
+            Event value = events.next();
+            if (mode == null && "mode".equals(((ScalarEvent) key).getValue()) && value.is(Event.ID.Scalar)) {
+                mode = ((ScalarEvent) value).getValue();
+            } else {
+                skipNode(events, value);
+            }
+        }
+        return mode;
+    }
 
     @Override
-    public Set<String> getWorkflowModes() {
-        List<Workflow> workflows = getWorkflowsFromFile();
-        return workflows.stream()
-                .map(Workflow::getMode)
-                .collect(Collectors.toSet());
+    public Optional<Workflow> findWorkflow(String mode) {
+        List<Workflow> workflows = Telemetry.time(Telemetry.PHASE_LOAD, cache::loadIfFresh);
+        if (workflows == null) {
+            // Streaming reads the file as part of the lookup, the cache is written once the workflow is on its way
+            Optional<Workflow> workflow = Telemetry.time(Telemetry.PHASE_LOOKUP, () -> findWorkflowInFile(mode));
+            cache.rebuildLater(this::readWorkflowFile);
+            return workflow;
+        }
+        return Telemetry.time(Telemetry.PHASE_LOOKUP, () -> cache.index(workflows).find(mode));
     }
 
     @Override
-    public Workflow getWorkflow(String mode) {
-        Workflow workflow = null;
-        try {
-            List<Workflow> workflows = getWorkflowsFromFile();
-            workflow = workflows.stream()
-                    .filter(w -> w.getMode().equalsIgnoreCase(mode))
-                    .findFirst()
-                    .orElseThrow(() -> new IllegalArgumentException("Workflow does not exist"));
-        } catch (IllegalArgumentException ex) {
-            System.err.printf("'%s' workflow does not exist", mode);
+    public WorkflowIndex getWorkflowIndex() {
+        List<Workflow> workflows = Telemetry.time(Telemetry.PHASE_LOAD, this::getWorkflowsFromFile);
+        return Telemetry.time(Telemetry.PHASE_LOOKUP, () -> cache.index(workflows));
+    }
+
+    /**
+     * Find the workflow by walking the parser events of the workflow file, stopping as soon as the matching workflow
+     * is complete. Non-matching workflows are skipped without being materialized. Content the walk does not read the
+     * same way as the full parse, such as aliases, tags or unknown keys, is left to the full parse instead.
+     *
+     * @param mode the selected workflow mode
+     * @return the matching workflow, if any
+     */
+    Optional<Workflow> findWorkflowInFile(String mode) {
+        try (Reader reader = new FileReader(WORKFLOW_FILE)) {
+            Optional<Workflow> workflow = streamWorkflow(reader, mode);
+            workflow.ifPresent(w -> LaunchGraph.validate(List.of(w)));
+            return workflow;
+        } catch (StreamFallbackException e) {
+            return cache.index(getWorkflowsFromFile()).find(mode);
+        } catch (IOException | YAMLException | IllegalArgumentException e) {
+            System.err.print(e.getMessage());
             System.exit(-1);
         }
+        return Optional.empty();
+    }
+
+    /**
+     * Walk the parser events of a workflow file up to the workflow with the given mode, ignoring case.
+     * <p>
+     * Only the part of the file up to the match is read, so a problem further down the file is only reported by the
+     * full parse.
+     *
+     * @param reader the content of a workflow file
+     * @param mode   the selected workflow mode
+     * @return the matching workflow, if any
+     * @throws StreamFallbackException if the content read so far needs the full parse, such as a workflow extending
+     *                                 others that may be anywhere in the file
+     */
+    Optional<Workflow> streamWorkflow(Reader reader, String mode) {
+        Iterator<Event> events = plainEvents(yaml().parse(reader).iterator());
+        Event root;
+        do {
+            root = events.next();
+        } while (root.is(Event.ID.StreamStart) || root.is(Event.ID.DocumentStart));
+        if (root.is(Event.ID.StreamEnd)) {
+            return Optional.empty();
+        }
+        if (!root.is(Event.ID.MappingStart)) {
+            throw new StreamFallbackException();
+        }
+        String key = WorkflowIndex.fold(mode);
+        Event name;
+        while (!(name = events.next()).is(Event.ID.MappingEnd)) {
+            if (!"workflows".equals(scalar(name))) {
+                throw new StreamFallbackException();
+            }
+            Event value = events.next();
+            if (value.is(Event.ID.Scalar) && scalar(value) == null) {
+                continue;
+            }
+            if (!value.is(Event.ID.SequenceStart)) {
+                throw new StreamFallbackException();
+            }
+            Event item;
+            while (!(item = events.next()).is(Event.ID.SequenceEnd)) {
+                if (item.is(Event.ID.Scalar) && scalar(item) == null) {
+                    continue;
+                }
+                if (!item.is(Event.ID.MappingStart)) {
+                    throw new StreamFallbackException();
+                }
+                Workflow workflow = readWorkflowIfMatches(events, key);
+                if (workflow != null && workflow.getExtends() != null && !workflow.getExtends().isEmpty()) {
+                    // The extended workflows may be anywhere in the file
+                    throw new StreamFallbackException();
+                }
+                if (workflow != null) {
+                    return Optional.of(workflow);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Pass the events on as they are, except for the aliases and explicit tags only the full parse resolves.
+     */
+    private static Iterator<Event> plainEvents(Iterator<Event> events) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return events.hasNext();
+            }
+
+            @Override
+            public Event next() {
+                Event event = events.next();
+                boolean tagged = event instanceof ScalarEvent scalar && scalar.getTag() != null
+                        || event instanceof CollectionStartEvent collection && collection.getTag() != null;
+                if (tagged || event.is(Event.ID.Alias)) {
+                    throw new StreamFallbackException();
+                }
+                return event;
+            }
+        };
+    }
+
+    /**
+     * Return the value of a scalar the way the full parse reads it into a string property.
+     *
+     * @return the scalar value, or {@code null} for a plain null such as {@code ~} or an empty value
+     * @throws StreamFallbackException if the event is not a scalar
+     */
+    private static String scalar(Event event) {
+        if (!event.is(Event.ID.Scalar)) {
+            throw new StreamFallbackException();
+        }
+        ScalarEvent scalar = (ScalarEvent) event;
+        boolean plain = scalar.getImplicit().canOmitTagInPlainScalar();
+        return plain && NULL_SCALARS.contains(scalar.getValue()) ? null : scalar.getValue();
+    }
+
+    /**
+     * Read the remaining events of a workflow mapping, only collecting its tools while it may still match the mode.
+     */
+    private Workflow readWorkflowIfMatches(Iterator<Event> events, String key) {
+        String entryMode = null;
+        List<String> apps = null;
+        List<String> websites = null;
+        List<ToolDependency> dependencies = null;
+        List<String> extendedModes = null;
+        boolean matches = true;
+        Event name;
+        while (!(name = events.next()).is(Event.ID.MappingEnd)) {
+            String property = scalar(name);
+            if (!WORKFLOW_PROPERTIES.contains(property)) {
+                // The full parse rejects the unknown property, even in a workflow that does not match
+                throw new StreamFallbackException();
+            }
+            Event value = events.next();
+            if (!matches) {
+                skipNode(events, value);
+            } else if ("mode".equals(property)) {
+                entryMode = scalar(value);
+                matches = entryMode != null && WorkflowIndex.fold(entryMode).equals(key);
+            } else if ("apps".equals(property)) {
+                apps = readStrings(events, value);
+            } else if ("websites".equals(property)) {
+                websites = readStrings(events, value);
+            } else if ("dependencies".equals(property)) {
+                dependencies = readDependencies(events, value);
+            } else {
+                extendedModes = readStrings(events, value);
+            }
+        }
+        if (!matches || entryMode == null) {
+            return null;
+        }
+        Workflow workflow = new Workflow(entryMode, apps, websites);
+        workflow.setDependencies(dependencies);
+        workflow.setExtends(extendedModes);
         return workflow;
     }
 
+    private List<ToolDependency> readDependencies(Iterator<Event> events, Event start) {
+        if (start.is(Event.ID.Scalar) && scalar(start) == null) {
+            return null;
+        }
+        if (!start.is(Event.ID.SequenceStart)) {
+            throw new StreamFallbackException();
+        }
+        List<ToolDependency> dependencies = new ArrayList<>();
+        Event item;
+        while (!(item = events.next()).is(Event.ID.SequenceEnd)) {
+            if (!item.is(Event.ID.MappingStart)) {
+                throw new StreamFallbackException();
+            }
+            ToolDependency dependency = new ToolDependency();
+            Event name;
+            while (!(name = events.next()).is(Event.ID.MappingEnd)) {
+                String property = scalar(name);
+                Event value = events.next();
+                switch (property == null ? "" : property) {
+                    case "tool" -> dependency.setTool(scalar(value));
+                    case "dependsOn" -> dependency.setDependsOn(readStrings(events, value));
+                    case "readiness" -> dependency.setReadiness(readReadiness(events, value));
+                    default -> throw new StreamFallbackException();
+                }
+            }
+            dependencies.add(dependency);
+        }
+        return dependencies;
+    }
+
+    private Readiness readReadiness(Iterator<Event> events, Event start) {
+        if (start.is(Event.ID.Scalar) && scalar(start) == null) {
+            return null;
+        }
+        if (!start.is(Event.ID.MappingStart)) {
+            throw new StreamFallbackException();
+        }
+        Readiness readiness = new Readiness();
+        Event name;
+        while (!(name = events.next()).is(Event.ID.MappingEnd)) {
+            String property = scalar(name);
+            String value = scalar(events.next());
+            try {
+                switch (property == null ? "" : property) {
+                    case "port" -> readiness.setPort(value == null ? null : Integer.valueOf(value));
+                    case "file" -> readiness.setFile(value);
+                    case "aliveMillis" -> readiness.setAliveMillis(value == null ? null : Long.valueOf(value));
+                    case "timeoutMillis" -> readiness.setTimeoutMillis(value == null ? null : Long.valueOf(value));
+                    default -> throw new StreamFallbackException();
+                }
+            } catch (NumberFormatException e) {
+                // The full parse also reads numbers such as 0x50 or 8_080, or reports the invalid one
+                throw new StreamFallbackException();
+            }
+        }
+        return readiness;
+    }
+
+    private List<String> readStrings(Iterator<Event> events, Event start) {
+        if (start.is(Event.ID.Scalar) && scalar(start) == null) {
+            return null;
+        }
+        if (!start.is(Event.ID.SequenceStart)) {
+            throw new StreamFallbackException();
+        }
+        List<String> values = new ArrayList<>();
+        Event item;
+        while (!(item = events.next()).is(Event.ID.SequenceEnd)) {
+            String value = scalar(item);
+            if (value == null) {
+                throw new StreamFallbackException();
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+    private void skipNode(Iterator<Event> events, Event start) {
+        if (!start.is(Event.ID.MappingStart) && !start.is(Event.ID.SequenceStart)) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            Event event = events.next();
+            if (event.is(Event.ID.MappingStart) || event.is(Event.ID.SequenceStart)) {
+                depth++;
+            } else if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd)) {
+                depth--;
+            }
+        }
+    }
+
+    @Override
+    public Path getWorkflowFile() {
+        return WORKFLOW_FILE.toPath();
+    }
+
+    @Override
+    public WorkflowIndex readWorkflowIndex() throws IOException {
+        try {
+            return cache.index(cache.load(() -> {
+                try {
+                    return readWorkflowFile();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void rebuildCache() {
+        cache.rebuild(this::parseWorkflowFile);
+    }
+
     private List<Workflow> getWorkflowsFromFile() {
+        return cache.load(this::parseWorkflowFile);
+    }
+
+    List<Workflow> parseWorkflowFile() {
         List<Workflow> workflows = new ArrayList<>();
         try {
-            if (!WORKFLOW_FILE.exists()) {
-                throw new IOException("Workflow file does not exist");
-            }
-            InputStream input = new FileInputStream(WORKFLOW_FILE);
-            WorkflowWrapper wrapper = yaml.loadAs(input, WorkflowWrapper.class);
-            workflows = wrapper.getWorkflows();
+            workflows = readWorkflowFile();
         } catch (IOException e) {
             System.err.print(e.getMessage());
             System.exit(-1);
@@ -88,6 +493,28 @@ public class YamlFileHandler implements FileHandler {
         return workflows;
     }
 
+    /**
+     * Parse and validate the workflow file, reporting a missing or malformed file to the caller.
+     */
+    List<Workflow> readWorkflowFile() throws IOException {
+        if (!WORKFLOW_FILE.exists()) {
+            throw new IOException("Workflow file does not exist");
+        }
+        try (InputStream input = new FileInputStream(WORKFLOW_FILE)) {
+            WorkflowWrapper wrapper = yaml().loadAs(input, WorkflowWrapper.class);
+            List<Workflow> workflows = wrapper != null && wrapper.getWorkflows() != null
+                    ? wrapper.getWorkflows()
+                    : new ArrayList<>();
+            // An empty entry, such as a lone dash in YAML, is not a workflow
+            workflows.removeIf(Objects::isNull);
+            workflows = WorkflowComposer.resolve(workflows);
+            LaunchGraph.validate(workflows);
+            return workflows;
+        } catch (YAMLException | IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
     @Override
     public void createWorkflowFile() {
         if (WORKFLOW_FILE.exists()) {
@@ -96,7 +523,7 @@ public class YamlFileHandler implements FileHandler {
         }
         try (Writer writer = new FileWriter(WORKFLOW_FILE)) {
             final WorkflowWrapper WRAPPER = new WorkflowWrapper(List.of(EXAMPLE));
-            String content = yaml.dumpAs(WRAPPER, Tag.MAP, DumperOptions.FlowStyle.BLOCK);
+            String content = yaml().dumpAs(WRAPPER, Tag.MAP, DumperOptions.FlowStyle.BLOCK);
             writer.write(content);
             System.out.print("Created workflows.yml file");
         } catch (IOException e) {
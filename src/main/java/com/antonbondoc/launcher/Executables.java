@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.launcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Resolves commands to the executables the operating system would run.
+ */
+public final class Executables {
+
+    /**
+     * The extensions tried on a bare command name, the empty one first.
+     */
+    private static final List<String> EXTENSIONS = extensions();
+
+    private Executables() {
+    }
+
+    private static List<String> extensions() {
+        List<String> extensions = new ArrayList<>();
+        extensions.add("");
+        String pathExt = System.getenv("PATHEXT");
+        if (System.getProperty("os.name", "").startsWith("Windows") && pathExt != null) {
+            for (String extension : pathExt.split(File.pathSeparator)) {
+                if (!extension.isBlank()) {
+                    extensions.add(extension.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return List.copyOf(extensions);
+    }
+
+    /**
+     * Find the executable a command runs the same way the operating system would: a path is taken as is, while a
+     * bare name is looked up in the directories of the {@code PATH} environment variable, trying the extensions of
+     * {@code PATHEXT} on Windows.
+     *
+     * @param command the command as written in the workflow file
+     * @return the absolute path of the executable as found, without resolving symbolic links, if it exists
+     */
+    public static Optional<Path> find(String command) {
+        try {
+            Path path = Paths.get(command);
+            if (path.getNameCount() > 1 || path.isAbsolute()) {
+                return isExecutable(path) ? Optional.of(path.toAbsolutePath()) : Optional.empty();
+            }
+            String searchPath = System.getenv("PATH");
+            if (searchPath == null) {
+                return Optional.empty();
+            }
+            for (String directory : searchPath.split(File.pathSeparator)) {
+                for (String extension : EXTENSIONS) {
+                    Path candidate = Paths.get(directory, command + extension);
+                    if (isExecutable(candidate)) {
+                        return Optional.of(candidate.toAbsolutePath());
+                    }
+                }
+            }
+        } catch (InvalidPathException ignored) {
+            // Not a path at all, so it cannot be found either
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Resolve a command to the real path of the executable it runs, so the same executable reached through different
+     * paths or symbolic links compares equal.
+     *
+     * @param command the command as written in the workflow file
+     * @return the real path of the executable, if it exists
+     */
+    public static Optional<Path> resolve(String command) {
+        return find(command).flatMap(Executables::realPath);
+    }
+
+    private static boolean isExecutable(Path path) {
+        return Files.isRegularFile(path) && Files.isExecutable(path);
+    }
+
+    private static Optional<Path> realPath(Path path) {
+        try {
+            return Optional.of(path.toRealPath());
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.launcher;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The launcher backends that can be selected by name.
+ * <p>
+ * A backend is only created on its first launch, so a workflow without websites never loads the classes of the
+ * website backend.
+ */
+public final class Launchers {
+
+    /**
+     * The open command of the platform when it is installed, otherwise the desktop integration.
+     */
+    public static final String AUTO = "auto";
+    public static final String DESKTOP = "desktop";
+    public static final String OPEN = "open";
+    public static final String NONE = "none";
+
+    public static final List<String> WEBSITE_BACKENDS = List.of(AUTO, DESKTOP, OPEN, NONE);
+
+    /**
+     * Creates the launchers replacing every backend, only ever set by the tests so they can run Antika end to end
+     * without opening anything.
+     */
+    private static volatile Supplier<Launcher> replacement;
+
+    private Launchers() {
+    }
+
+    /**
+     * @return the launcher of applications
+     */
+    public static Launcher forApps() {
+        Supplier<Launcher> factory = replacement;
+        return factory != null ? factory.get() : new ProcessLauncher();
+    }
+
+    /**
+     * @param backend one of the {@link #WEBSITE_BACKENDS}
+     * @return the launcher of websites, created on its first launch
+     * @throws IllegalArgumentException if the backend is unknown
+     */
+    public static Launcher forWebsites(String backend) {
+        Supplier<Launcher> factory = replacement;
+        if (factory != null) {
+            return factory.get();
+        }
+        return switch (backend) {
+            case AUTO -> new LazyLauncher(() -> {
+                OpenCommandLauncher open = new OpenCommandLauncher();
+                return open.isAvailable() ? open : new DesktopLauncher();
+            });
+            case DESKTOP -> new LazyLauncher(DesktopLauncher::new);
+            case OPEN -> new LazyLauncher(OpenCommandLauncher::new);
+            case NONE -> new RecordingLauncher();
+            default -> throw new IllegalArgumentException(String.format(
+                    "Unknown website launcher '%s', expected one of %s", backend, String.join(", ", WEBSITE_BACKENDS)));
+        };
+    }
+
+    /**
+     * @param factory creates the launcher used in place of every backend, or {@code null} to use the backends again
+     */
+    static void replaceWith(Supplier<Launcher> factory) {
+        replacement = factory;
+    }
+
+    private static final class LazyLauncher implements Launcher {
+
+        private final Supplier<Launcher> factory;
+        private volatile Launcher launcher;
+
+        private LazyLauncher(Supplier<Launcher> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public ProcessHandle launch(String tool) throws IOException, URISyntaxException {
+            Launcher current = launcher;
+            if (current == null) {
+                synchronized (this) {
+                    if (launcher == null) {
+                        launcher = factory.get();
+                    }
+                    current = launcher;
+                }
+            }
+            return current.launch(tool);
+        }
+    }
+}
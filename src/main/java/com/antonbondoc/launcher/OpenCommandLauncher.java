@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.launcher;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opens a website in the default browser by running the open command of the platform: {@code open} on macOS,
+ * {@code rundll32 url.dll,FileProtocolHandler} on Windows and {@code xdg-open} everywhere else.
+ */
+public class OpenCommandLauncher implements Launcher {
+
+    private final List<String> command;
+
+    public OpenCommandLauncher() {
+        this(commandOf(System.getProperty("os.name", "")));
+    }
+
+    /**
+     * @param command the program and leading arguments the URL is appended to
+     */
+    public OpenCommandLauncher(List<String> command) {
+        this.command = List.copyOf(command);
+    }
+
+    private static List<String> commandOf(String osName) {
+        if (osName.startsWith("Mac")) {
+            return List.of("open");
+        }
+        if (osName.startsWith("Windows")) {
+            return List.of("rundll32", "url.dll,FileProtocolHandler");
+        }
+        return List.of("xdg-open");
+    }
+
+    /**
+     * @return whether the open command is installed
+     */
+    public boolean isAvailable() {
+        return Executables.resolve(command.getFirst()).isPresent();
+    }
+
+    @Override
+    public ProcessHandle launch(String url) throws IOException, URISyntaxException {
+        new URI(url);
+        List<String> arguments = new ArrayList<>(command);
+        arguments.add(url);
+        new ProcessBuilder(arguments)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        // The open command hands the URL over to the browser and exits, so there is no process to track
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.model;
+
+import java.time.Duration;
+
+/**
+ * The outcome of launching a single tool of a workflow.
+ *
+ * @param type     whether the tool is an application or a website
+ * @param tool     the application path or website URL as written in the workflow file
+ * @param success  whether the tool was dispatched or is already running
+ * @param skipped  whether the launch was skipped because the application is already running
+ * @param error    the reason the launch failed, or {@code null} on success
+ * @param process  the started process, or {@code null} if the tool did not start a process of its own
+ * @param duration the time it took to start the process or for the browser call to return
+ */
+public record LaunchResult(Type type, String tool, boolean success, boolean skipped, String error,
+                           ProcessHandle process, Duration duration) {
+
+    public enum Type {
+        APP, WEBSITE
+    }
+
+    public static LaunchResult success(Type type, String tool, ProcessHandle process, Duration duration) {
+        return new LaunchResult(type, tool, true, false, null, process, duration);
+    }
+
+    public static LaunchResult skipped(Type type, String tool, ProcessHandle process) {
+        return new LaunchResult(type, tool, true, true, null, process, Duration.ZERO);
+    }
+
+    public static LaunchResult failure(Type type, String tool, String error, Duration duration) {
+        return new LaunchResult(type, tool, false, false, error, null, duration);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.model;
+
+import java.util.List;
+
+/**
+ * The launch ordering of a single tool of a workflow.
+ * <p>
+ * The tool is only launched once every tool it depends on is ready. A tool is ready as soon as it is dispatched,
+ * unless it has a readiness probe, in which case it is ready once the probe passes.
+ */
+public class ToolDependency {
+
+    private String tool;
+    private List<String> dependsOn;
+    private Readiness readiness;
+
+    public ToolDependency() {
+    }
+
+    public ToolDependency(String tool, List<String> dependsOn, Readiness readiness) {
+        this.tool = tool;
+        this.dependsOn = dependsOn;
+        this.readiness = readiness;
+    }
+
+    public String getTool() {
+        return tool;
+    }
+
+    public void setTool(String tool) {
+        this.tool = tool;
+    }
+
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
+
+    public void setDependsOn(List<String> dependsOn) {
+        this.dependsOn = dependsOn;
+    }
+
+    public Readiness getReadiness() {
+        return readiness;
+    }
+
+    public void setReadiness(Readiness readiness) {
+        this.readiness = readiness;
+    }
+}
@@ -24,6 +24,8 @@
 
 package com.antonbondoc.model;
 
+import com.google.gson.annotations.SerializedName;
+
 import java.util.List;
 
 public class Workflow {
@@ -31,6 +33,9 @@ public class Workflow {
     private String mode;
     private List<String> apps;
     private List<String> websites;
+    private List<ToolDependency> dependencies;
+    @SerializedName("extends")
+    private List<String> extendedModes;
 
     public Workflow() {
     }
@@ -64,4 +69,23 @@ public class Workflow {
     public void setWebsites(List<String> websites) {
         this.websites = websites;
     }
+
+    public List<ToolDependency> getDependencies() {
+        return dependencies;
+    }
+
+    public void setDependencies(List<ToolDependency> dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * @return the modes of the workflows whose tools this workflow inherits
+     */
+    public List<String> getExtends() {
+        return extendedModes;
+    }
+
+    public void setExtends(List<String> extendedModes) {
+        this.extendedModes = extendedModes;
+    }
 }
@@ -0,0 +1,194 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.telemetry;
+
+import com.antonbondoc.model.LaunchResult;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Timings of a single Antika request, collected per phase and per launched tool.
+ * <p>
+ * Recording is bound to the thread serving the request and is a no-op unless {@link #start()} was called on it, so
+ * the instrumented code paths do not have to know whether the user asked for stats.
+ */
+public final class Telemetry {
+
+    public static final String PHASE_ARGUMENTS = "arguments";
+    public static final String PHASE_LOAD = "load";
+    public static final String PHASE_LOOKUP = "lookup";
+    public static final String PHASE_LAUNCH = "launch";
+
+    private static final ThreadLocal<Telemetry> CURRENT = new ThreadLocal<>();
+
+    private final Instant startedAt = Instant.now();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final List<LaunchResult> launches = new ArrayList<>();
+    private String mode;
+
+    private Telemetry() {
+    }
+
+    /**
+     * Start recording the request served by the current thread.
+     *
+     * @return the telemetry of the request
+     */
+    public static Telemetry start() {
+        Telemetry telemetry = new Telemetry();
+        CURRENT.set(telemetry);
+        return telemetry;
+    }
+
+    /**
+     * Stop recording the request served by the current thread.
+     */
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Run the action and add its duration to the given phase.
+     *
+     * @param phase  the phase the action belongs to
+     * @param action the action to time
+     * @return the result of the action
+     */
+    public static <T> T time(String phase, Supplier<T> action) {
+        Telemetry telemetry = CURRENT.get();
+        if (telemetry == null) {
+            return action.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            telemetry.record(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record the outcome of the launched tools.
+     *
+     * @param mode    the workflow mode the tools belong to
+     * @param results the launch results of a workflow
+     */
+    public static void recordLaunches(String mode, List<LaunchResult> results) {
+        Telemetry telemetry = CURRENT.get();
+        if (telemetry != null) {
+            telemetry.mode = mode;
+            telemetry.launches.addAll(results);
+        }
+    }
+
+    /**
+     * Add the duration to the given phase.
+     *
+     * @param phase the phase the duration belongs to
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(String phase, long nanos) {
+        phases.merge(phase, nanos, Long::sum);
+    }
+
+    /**
+     * Print the breakdown per phase and per tool.
+     *
+     * @param out the stream to print to
+     */
+    public void printReport(PrintStream out) {
+        long total = phases.values().stream().mapToLong(Long::longValue).sum();
+        out.println("Antika Stats");
+        out.println("Phases:");
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            out.printf("  %-12s %10.2f ms%n", phase.getKey(), millis(phase.getValue()));
+        }
+        out.printf("  %-12s %10.2f ms%n", "total", millis(total));
+        if (launches.isEmpty()) {
+            return;
+        }
+        out.println("Tools:");
+        for (LaunchResult launch : launches) {
+            out.printf("  %-8s %10.2f ms  %s%s%n", launch.type(), millis(launch.duration().toNanos()), launch.tool(),
+                    launch.skipped() ? " (already running)" : launch.success() ? "" : " (failed: " + launch.error() + ")");
+        }
+    }
+
+    /**
+     * Append the request as a single JSON line to the given file.
+     *
+     * @param file the JSON lines file to append to
+     * @throws IOException if the file cannot be written
+     */
+    public void appendTo(Path file) throws IOException {
+        Files.writeString(file, JsonLine.of(this) + System.lineSeparator(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Builds the JSON line of a request. Kept apart so Gson is only loaded when the stats are written to a file.
+     */
+    private static final class JsonLine {
+
+        private static String of(Telemetry telemetry) {
+            JsonObject json = new JsonObject();
+            json.addProperty("timestamp", telemetry.startedAt.toString());
+            json.addProperty("mode", telemetry.mode);
+            JsonObject phaseJson = new JsonObject();
+            telemetry.phases.forEach((phase, nanos) -> phaseJson.addProperty(phase, millis(nanos)));
+            json.add("phases", phaseJson);
+            JsonArray toolJson = new JsonArray();
+            for (LaunchResult launch : telemetry.launches) {
+                JsonObject tool = new JsonObject();
+                tool.addProperty("type", launch.type().name());
+                tool.addProperty("tool", launch.tool());
+                tool.addProperty("success", launch.success());
+                tool.addProperty("skipped", launch.skipped());
+                tool.addProperty("millis", millis(launch.duration().toNanos()));
+                tool.addProperty("error", launch.error());
+                toolJson.add(tool);
+            }
+            json.add("tools", toolJson);
+            return json.toString();
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,72 @@
+# Bash completion for Antika. Load it in the current shell with:
+#   source <(antika --completion bash)
+# Workflow modes are read from the mode index Antika writes next to each workflow file, so completing a mode does not
+# start a JVM unless a workflow file changed since its mode index was written.
+
+# Print the workflow file of each configuration directory that has one
+_antika_workflow_files() {
+    local dir
+    for dir in "$PWD" "$HOME/.antika" "${XDG_CONFIG_HOME:-$HOME/.config}/antika" /etc/antika; do
+        if [ -f "$dir/workflows.yml" ]; then
+            printf '%s\n' "$dir/workflows.yml"
+        elif [ -f "$dir/workflows.json" ]; then
+            printf '%s\n' "$dir/workflows.json"
+        fi
+    done
+}
+
+# Print the workflow modes of every configuration directory, rebuilding the mode indexes that are missing or stale
+_antika_modes() {
+    local file index stale= indexes=()
+    while IFS= read -r file; do
+        index="$(dirname "$file")/.$(basename "$file").modes"
+        # A directory Antika cannot write to, such as /etc/antika, only has a mode index if one was built there
+        if { [ ! -f "$index" ] || [ "$file" -nt "$index" ]; } && [ -w "$(dirname "$file")" ]; then
+            stale=1
+        fi
+        indexes+=("$index")
+    done < <(_antika_workflow_files)
+    if [ -n "$stale" ]; then
+        antika --rebuild-cache >/dev/null 2>&1
+    fi
+    if [ ${#indexes[@]} -gt 0 ]; then
+        cat "${indexes[@]}" 2>/dev/null | LC_ALL=C sort -u
+    fi
+}
+
+_antika() {
+    local cur="${COMP_WORDS[COMP_CWORD]}"
+    local prev="${COMP_WORDS[COMP_CWORD-1]}"
+    local before=
+    if [ "$COMP_CWORD" -gt 1 ]; then
+        before="${COMP_WORDS[COMP_CWORD-2]}"
+    fi
+    COMPREPLY=()
+    local prefix=
+    case "$prev" in
+        -m|--mode)
+            # Several modes are separated by commas, only the last one is completed
+            if [[ "$cur" == *,* ]]; then
+                prefix="${cur%,*},"
+            fi
+            ;;
+        -sw|--switch|-at|--add-tool|-rt|--remove-tool)
+            ;;
+        *)
+            if [[ "$before" != -sw && "$before" != --switch ]]; then
+                if [[ "$cur" == -* ]]; then
+                    COMPREPLY=($(compgen -W "@OPTIONS@" -- "$cur"))
+                fi
+                return
+            fi
+            ;;
+    esac
+    local mode
+    while IFS= read -r mode; do
+        if [[ "$prefix$mode" == "$cur"* ]]; then
+            COMPREPLY+=("$(printf '%q' "$prefix$mode")")
+        fi
+    done < <(_antika_modes)
+}
+
+complete -F _antika antika
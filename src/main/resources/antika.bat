@@ -2,5 +2,19 @@
 REM Path to Antika JAR file
 set JAR_PATH="%~dp0Antika-2.1.0-all.jar"
 
-REM Call java to run your JAR with passed arguments
-java -jar %JAR_PATH% %*
\ No newline at end of file
+REM Path to the class data sharing archive next to the JAR file, which makes Antika start faster, and to the class list
+REM it is dumped from
+set ARCHIVE_PATH="%~dp0Antika-2.1.0-all.jsa"
+set CLASS_LIST_PATH="%~dp0Antika-2.1.0-all.classlist"
+
+REM Dump the archive on the first run, with exactly the JAR path used below, so it is valid wherever Antika is installed
+if not exist %ARCHIVE_PATH% if exist %CLASS_LIST_PATH% (
+    java -Xshare:dump -XX:SharedClassListFile=%CLASS_LIST_PATH% -XX:SharedArchiveFile=%ARCHIVE_PATH% -jar %JAR_PATH% >nul 2>&1
+)
+
+REM Call java to run your JAR with passed arguments, using the archive when there is one
+if exist %ARCHIVE_PATH% (
+    java -XX:SharedArchiveFile=%ARCHIVE_PATH% -Xlog:cds=off -jar %JAR_PATH% %*
+) else (
+    java -jar %JAR_PATH% %*
+)
\ No newline at end of file
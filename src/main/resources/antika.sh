@@ -1,6 +1,23 @@
 #!/bin/bash
 # Path to Antika JAR file
-JAR_PATH="$(dirname "$0")/Antika-2.1.0-all.jar"
+DIR_PATH="$(cd "$(dirname "$0")" && pwd)"
+JAR_PATH="$DIR_PATH/Antika-2.1.0-all.jar"
 
-# Call java to run your JAR with passed arguments
-java -jar "$JAR_PATH" "$@"
\ No newline at end of file
+# Path to the class data sharing archive next to the JAR file, which makes Antika start faster, and to the class list
+# it is dumped from
+ARCHIVE_PATH="$DIR_PATH/Antika-2.1.0-all.jsa"
+CLASS_LIST_PATH="$DIR_PATH/Antika-2.1.0-all.classlist"
+
+# Dump the archive on the first run, with exactly the JAR path used below, so it is valid wherever Antika is installed
+if [ ! -f "$ARCHIVE_PATH" ] && [ -f "$CLASS_LIST_PATH" ] && [ -w "$DIR_PATH" ]; then
+    java -Xshare:dump -XX:SharedClassListFile="$CLASS_LIST_PATH" -XX:SharedArchiveFile="$ARCHIVE_PATH.$$" \
+        -jar "$JAR_PATH" > /dev/null 2>&1 && mv -f "$ARCHIVE_PATH.$$" "$ARCHIVE_PATH"
+    rm -f "$ARCHIVE_PATH.$$"
+fi
+
+# Call java to run your JAR with passed arguments, using the archive when there is one
+if [ -f "$ARCHIVE_PATH" ]; then
+    java -XX:SharedArchiveFile="$ARCHIVE_PATH" -Xlog:cds=off -jar "$JAR_PATH" "$@"
+else
+    java -jar "$JAR_PATH" "$@"
+fi
\ No newline at end of file
@@ -0,0 +1,269 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc;
+
+import com.antonbondoc.handler.WorkflowFixtures;
+import com.antonbondoc.launcher.SimulatedLauncher;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The end-to-end latency of {@code antika --mode} as the user sees it, from starting the request to the last tool
+ * being dispatched, against generated {@code workflows.yml} and {@code workflows.json} files.
+ * <p>
+ * Every tool goes to a {@link SimulatedLauncher} taking a fixed time per launch instead of opening anything. Cold runs
+ * start a fresh JVM for every request, while warm runs call {@link Antika#main(String[])} over and over in a single
+ * JVM, the way the daemon serves requests. The phases of each request are read from its {@code --stats-file} line,
+ * and {@code total} is the wall-clock time of the whole request, JVM startup included for a cold run.
+ * <p>
+ * Settings are passed as {@code key=value} arguments: {@code iterations.cold}, {@code iterations.warm},
+ * {@code warmup}, {@code modes} and {@code launch.millis}. A budget such as {@code budget.warm.total.p95=50} fails the
+ * harness with a non-zero exit status when the 95th percentile of the total time of the warm runs is over 50 ms.
+ * {@code ./gradlew latency} runs the harness with the budgets of the build.
+ */
+public final class LatencyHarness {
+
+    private static final List<String> FORMATS = List.of("yaml", "json");
+    private static final int[] PERCENTILES = {50, 95, 99};
+    private static final String TOTAL = "total";
+    private static final String WARM = "warm";
+    private static final String COLD = "cold";
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "iterations.cold", "20",
+            "iterations.warm", "200",
+            "warmup", "20",
+            "modes", "1000",
+            "launch.millis", "2");
+
+    private LatencyHarness() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // A single request in the fresh JVM started by Fixture#runCold
+        if (args.length > 0 && args[0].equals(COLD)) {
+            SimulatedLauncher.install();
+            Antika.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals(WARM)) {
+            runWarm(args);
+            return;
+        }
+        Map<String, String> settings = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected a key=value setting but was " + arg);
+            }
+            settings.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        int modes = Integer.parseInt(settings.get("modes"));
+        System.out.printf("Latency of antika --mode against %d workflows with %s ms per launch%n", modes,
+                settings.get("launch.millis"));
+        System.out.printf("%-5s %-5s %-10s %10s %10s %10s%n", "file", "run", "phase", "p50", "p95", "p99");
+        List<String> failures = new ArrayList<>();
+        for (String format : FORMATS) {
+            Path directory = Files.createTempDirectory("antika-latency");
+            try {
+                Fixture fixture = Fixture.create(directory, format, modes, settings.get("launch.millis"));
+                Map<String, Map<String, List<Double>>> runs = new LinkedHashMap<>();
+                runs.put(COLD, fixture.runCold(Integer.parseInt(settings.get("iterations.cold"))));
+                runs.put(WARM, fixture.runWarm(Integer.parseInt(settings.get("iterations.warm")),
+                        Integer.parseInt(settings.get("warmup"))));
+                runs.forEach((run, phases) -> phases.forEach((phase, samples) -> {
+                    samples.sort(null);
+                    System.out.printf("%-5s %-5s %-10s %7.2f ms %7.2f ms %7.2f ms%n", format, run, phase,
+                            percentile(samples, 50), percentile(samples, 95), percentile(samples, 99));
+                }));
+                failures.addAll(checkBudgets(format, runs, settings));
+            } finally {
+                WorkflowFixtures.delete(directory);
+            }
+        }
+        if (!failures.isEmpty()) {
+            failures.forEach(System.err::println);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compare the percentiles of every run with the budgets among the settings.
+     *
+     * @return a line for every budget exceeded
+     */
+    private static List<String> checkBudgets(String format, Map<String, Map<String, List<Double>>> runs,
+                                             Map<String, String> settings) {
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, String> setting : settings.entrySet()) {
+            String[] key = setting.getKey().split("\\.");
+            if (key.length != 4 || !key[0].equals("budget") || !key[3].matches("p\\d{1,2}")) {
+                continue;
+            }
+            double budget = Double.parseDouble(setting.getValue());
+            List<Double> samples = runs.getOrDefault(key[1], Map.of()).get(key[2]);
+            if (samples == null || samples.isEmpty()) {
+                failures.add(String.format("[FAIL] %s: no %s samples of the %s phase for %s", format, key[1], key[2],
+                        setting.getKey()));
+                continue;
+            }
+            double value = percentile(samples, Integer.parseInt(key[3].substring(1)));
+            if (value > budget) {
+                failures.add(String.format("[FAIL] %s: %s %s %s is %.2f ms, over the budget of %.2f ms", format,
+                        key[1], key[2], key[3], value, budget));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * @return the nearest-rank percentile of the sorted samples
+     */
+    private static double percentile(List<Double> sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+
+    /**
+     * The warm runs, in the JVM started by {@link Fixture#runWarm(int, int)} within the project directory:
+     * {@code warm <iterations> <warmup> <modes> <stats file> <totals file>}.
+     */
+    private static void runWarm(String[] args) throws IOException {
+        SimulatedLauncher.install();
+        int iterations = Integer.parseInt(args[1]);
+        int warmup = Integer.parseInt(args[2]);
+        int modes = Integer.parseInt(args[3]);
+        List<String> totals = new ArrayList<>(iterations);
+        for (int i = 0; i < warmup + iterations; i++) {
+            List<String> request = new ArrayList<>(List.of("--mode", mode(i, modes), "--force"));
+            if (i >= warmup) {
+                request.addAll(List.of("--stats-file", args[4]));
+            }
+            long start = System.nanoTime();
+            Antika.main(request.toArray(String[]::new));
+            long nanos = System.nanoTime() - start;
+            if (i >= warmup) {
+                totals.add(String.valueOf(nanos / 1_000_000.0));
+            }
+        }
+        Files.write(Path.of(args[5]), totals, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a mode spread over the whole workflow file, so the runs do not keep looking up the first workflow
+     */
+    private static String mode(int iteration, int modes) {
+        return WorkflowFixtures.mode((int) ((iteration * 7919L) % modes));
+    }
+
+    /**
+     * A generated project directory with its own home directory, so the launch history and running tools of the runs
+     * stay out of the home directory of the user.
+     */
+    private record Fixture(Path directory, Path home, Path project, int modes, List<String> jvm) {
+
+        static Fixture create(Path directory, String format, int modes, String launchMillis) throws IOException {
+            Path home = Files.createDirectories(directory.resolve("home"));
+            Path project = Files.createDirectories(directory.resolve("project"));
+            String java = ProcessHandle.current().info().command()
+                    .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            // The JVM running the harness is an application that resolves on every platform
+            WorkflowFixtures.write(project, format, modes, i -> List.of(java));
+            List<String> jvm = List.of(java, "-cp", System.getProperty("java.class.path"),
+                    "-D" + SimulatedLauncher.LATENCY_PROPERTY + "=" + launchMillis,
+                    "-Duser.home=" + home);
+            return new Fixture(directory, home, project, modes, jvm);
+        }
+
+        Map<String, List<Double>> runCold(int iterations) throws IOException, InterruptedException {
+            Path stats = directory.resolve("cold.jsonl");
+            List<Double> totals = new ArrayList<>(iterations);
+            // The first run is not timed, it lets the workflow file reach the page cache
+            for (int i = -1; i < iterations; i++) {
+                List<String> command = new ArrayList<>(jvm);
+                command.addAll(List.of(LatencyHarness.class.getName(), COLD, "--mode", mode(i + 1, modes), "--force"));
+                if (i >= 0) {
+                    command.addAll(List.of("--stats-file", stats.toString()));
+                }
+                long start = System.nanoTime();
+                run(command);
+                if (i >= 0) {
+                    totals.add((System.nanoTime() - start) / 1_000_000.0);
+                }
+            }
+            return phases(stats, totals);
+        }
+
+        Map<String, List<Double>> runWarm(int iterations, int warmup) throws IOException, InterruptedException {
+            Path stats = directory.resolve("warm.jsonl");
+            Path totals = directory.resolve("warm-totals.txt");
+            List<String> command = new ArrayList<>(jvm);
+            command.addAll(List.of(LatencyHarness.class.getName(), WARM, String.valueOf(iterations),
+                    String.valueOf(warmup), String.valueOf(modes), stats.toString(), totals.toString()));
+            run(command);
+            return phases(stats, Files.readAllLines(totals).stream().map(Double::valueOf).toList());
+        }
+
+        private void run(List<String> command) throws IOException, InterruptedException {
+            Path log = directory.resolve("antika.log");
+            Process process = new ProcessBuilder(command)
+                    .directory(project.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start();
+            int status = process.waitFor();
+            if (status != 0) {
+                throw new IllegalStateException(String.format("%s exited with %d:%n%s", String.join(" ", command),
+                        status, Files.readString(log)));
+            }
+        }
+
+        /**
+         * Collect the samples of every phase from the stats lines, followed by the total times.
+         */
+        private static Map<String, List<Double>> phases(Path stats, List<Double> totals) throws IOException {
+            Map<String, List<Double>> phases = new LinkedHashMap<>();
+            for (String line : Files.readAllLines(stats)) {
+                JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+                json.getAsJsonObject("phases").entrySet().forEach(phase -> phases
+                        .computeIfAbsent(phase.getKey(), key -> new ArrayList<>())
+                        .add(phase.getValue().getAsDouble()));
+            }
+            phases.put(TOTAL, new ArrayList<>(totals));
+            return phases;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.Workflow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static com.antonbondoc.handler.StreamingLookups.assertSameAsFullParse;
+import static com.antonbondoc.handler.StreamingLookups.awaitCache;
+import static com.antonbondoc.handler.StreamingLookups.describe;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonFileHandlerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void stopsReadingOnceTheWorkflowIsFound() throws IOException {
+        StringBuilder content = new StringBuilder("{\"workflows\": [");
+        for (int i = 0; i < 20_000; i++) {
+            content.append(i == 0 ? "" : ",")
+                    .append("{\"mode\": \"mode-").append(i).append("\", \"apps\": [\"/usr/bin/app-").append(i)
+                    .append("\"]}");
+        }
+        content.append("]}");
+        StreamingLookups.CountingReader reader = new StreamingLookups.CountingReader(
+                new StringReader(content.toString()));
+
+        Optional<Workflow> workflow = handler("{}").streamWorkflow(reader, "mode-1");
+
+        assertEquals("mode-1 apps=[/usr/bin/app-1] websites=null extends=null dependencies=null", describe(workflow));
+        assertTrue(reader.count() < content.length() / 100, "Read " + reader.count() + " of " + content.length());
+    }
+
+    @Test
+    void matchesTheFullParse() throws IOException {
+        String content = """
+                // Comments are accepted by the full parse
+                {
+                  "version": 1,
+                  "workflows": [
+                    {"mode": "Alpha", "apps": ["/bin/true"], "websites": null, "notes": "ignored"},
+                    null,
+                    {"mode": null, "apps": ["/bin/false"]},
+                    {
+                      "mode": "beta",
+                      "apps": ["/bin/true"],
+                      "websites": ["https://example.com"],
+                      "dependencies": [
+                        {"tool": "https://example.com", "dependsOn": ["/bin/true"],
+                         "readiness": {"port": 8080, "timeoutMillis": 500}}
+                      ]
+                    },
+                    {"mode": "gamma", "apps": ["/bin/true"], "extends": ["beta"]}
+                  ]
+                }
+                """;
+        for (String mode : new String[]{"alpha", "ALPHA", "beta", "gamma", "delta"}) {
+            assertSameAsFullParse(handler(content), mode);
+        }
+    }
+
+    @Test
+    void valuesConvertedByTheFullParseAreLeftToIt() throws IOException {
+        String content = """
+                {"workflows": [
+                  {"mode": "alpha", "apps": ["/bin/true", 5, true]},
+                  {"mode": 7, "apps": ["/bin/false"]}
+                ]}
+                """;
+        JsonFileHandler handler = handler(content);
+        for (String mode : new String[]{"alpha", "7"}) {
+            assertThrows(StreamFallbackException.class, () -> handler.streamWorkflow(new StringReader(content), mode));
+            assertSameAsFullParse(handler, mode);
+        }
+    }
+
+    @Test
+    void streamedLookupLeavesTheCacheBehind() throws IOException, InterruptedException {
+        JsonFileHandler handler = handler("{\"workflows\": [{\"mode\": \"alpha\", \"apps\": [\"/bin/true\"]}]}");
+
+        assertTrue(handler.findWorkflow("alpha").isPresent());
+
+        awaitCache(directory.resolve(".workflows.json.bin"));
+    }
+
+    private JsonFileHandler handler(String content) throws IOException {
+        Files.writeString(directory.resolve("workflows.json"), content);
+        return new JsonFileHandler(directory);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.antonbondoc.handler.StreamingLookups.awaitCache;
+import static com.antonbondoc.handler.StreamingLookups.describe;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class LayeredFileHandlerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void coldLookupLeavesTheCacheOfEveryStreamedLayerBehind() throws IOException, InterruptedException {
+        Path system = layer("system", """
+                workflows:
+                  - mode: base
+                    apps: [/bin/false]
+                  - mode: shared
+                    apps: [/bin/false]
+                """);
+        Path user = layer("user", """
+                workflows:
+                  - mode: shared
+                    apps: [/bin/true]
+                """);
+        Path project = layer("project", """
+                {"workflows": [{"mode": "local", "apps": ["/bin/true"]}]}
+                """);
+        List<Path> directories = List.of(system, user, project);
+
+        assertEquals("base apps=[/bin/false] websites=null extends=null dependencies=null",
+                describe(new LayeredFileHandler(directories).findWorkflow("base")));
+
+        awaitCache(system.resolve(".workflows.yml.bin"));
+        awaitCache(user.resolve(".workflows.yml.bin"));
+        awaitCache(project.resolve(".workflows.json.bin"));
+        assertNotNull(new WorkflowCache(system.resolve("workflows.yml").toFile()).loadIfFresh());
+        assertNotNull(new WorkflowCache(user.resolve("workflows.yml").toFile()).loadIfFresh());
+        assertEquals("shared apps=[/bin/true] websites=null extends=null dependencies=null",
+                describe(new LayeredFileHandler(directories).findWorkflow("shared")));
+    }
+
+    private Path layer(String name, String content) throws IOException {
+        Path layer = Files.createDirectories(directory.resolve(name));
+        Files.writeString(layer.resolve(content.startsWith("{") ? "workflows.json" : "workflows.yml"), content);
+        return layer;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.launcher.Executables;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProcessSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void scriptIsFoundThroughItsInterpreter() throws IOException, InterruptedException {
+        Path script = script("#!/bin/sh\nsleep 30\n");
+        Process process = new ProcessBuilder(script.toString()).start();
+        try {
+            awaitArguments(process);
+
+            Optional<ProcessHandle> running = ProcessSnapshot.take().find(script.toString());
+
+            assertEquals(Optional.of(process.pid()), running.map(ProcessHandle::pid));
+        } finally {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    @Test
+    void scriptGivenToAnotherProgramIsNotRunning() throws IOException, InterruptedException {
+        Path script = script("#!/bin/sh\nsleep 30\n");
+        Process process = new ProcessBuilder("tail", "-f", script.toString()).start();
+        try {
+            awaitArguments(process);
+
+            assertTrue(ProcessSnapshot.take().find(script.toString()).isEmpty());
+        } finally {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    @Test
+    void interpreterIsLookedUpThroughEnv() throws IOException {
+        assertEquals(Executables.resolve("sh"), ProcessSnapshot.interpreterOf(script("#!/usr/bin/env -S A=1 sh -e\n")));
+        assertEquals(Optional.empty(), ProcessSnapshot.interpreterOf(script("echo not a script\n")));
+    }
+
+    private Path script(String content) throws IOException {
+        Path script = Files.createTempFile(directory, "app", ".sh");
+        Files.writeString(script, content);
+        Files.setPosixFilePermissions(script, PosixFilePermissions.fromString("rwx------"));
+        return script;
+    }
+
+    /**
+     * Wait until the process reports its arguments, which it only does once it has executed its program.
+     */
+    private static void awaitArguments(Process process) throws InterruptedException {
+        for (int i = 0; i < 500 && process.info().arguments().isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.LaunchResult;
+import com.antonbondoc.model.Workflow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RunningToolsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mergedLaunchIsRecordedForEveryMode() {
+        RunningTools running = new RunningTools(directory);
+        Workflow dev = new Workflow("dev", List.of("/bin/true", "/bin/sleep"), null);
+        Workflow chat = new Workflow("chat", List.of("/bin/sleep", "/bin/cat"), null);
+        ProcessHandle process = ProcessHandle.current();
+        List<LaunchResult> results = List.of(
+                LaunchResult.success(LaunchResult.Type.APP, "/bin/true", process, Duration.ZERO),
+                LaunchResult.success(LaunchResult.Type.APP, "/bin/sleep", process, Duration.ZERO),
+                LaunchResult.success(LaunchResult.Type.APP, "/bin/cat", process, Duration.ZERO),
+                LaunchResult.success(LaunchResult.Type.WEBSITE, "https://example.com", null, Duration.ZERO));
+
+        running.record(dev, results);
+        running.record(chat, results);
+
+        assertEquals(Set.of("/bin/true", "/bin/sleep"), running.read("dev").keySet());
+        assertEquals(Set.of("/bin/sleep", "/bin/cat"), running.read("chat").keySet());
+    }
+
+    @Test
+    void modesAreMatchedRegardlessOfCase() {
+        RunningTools running = new RunningTools(directory);
+        running.record(new Workflow("Dev", List.of("/bin/true"), null), List.of(
+                LaunchResult.success(LaunchResult.Type.APP, "/bin/true", ProcessHandle.current(), Duration.ZERO)));
+
+        assertEquals(Set.of("/bin/true"), running.read("DEV").keySet());
+
+        running.write("dev", Map.of());
+
+        assertEquals(Set.of(), running.read("Dev").keySet());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.Readiness;
+import com.antonbondoc.model.ToolDependency;
+import com.antonbondoc.model.Workflow;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Shared checks of the streaming lookups of the file handlers against the full parse of the workflow file.
+ */
+final class StreamingLookups {
+
+    private static final long CACHE_TIMEOUT_MILLIS = 10_000;
+
+    private StreamingLookups() {
+    }
+
+    static void assertSameAsFullParse(YamlFileHandler handler, String mode) throws IOException {
+        assertEquals(describe(new WorkflowIndex(handler.readWorkflowFile()).find(mode)),
+                describe(handler.findWorkflowInFile(mode)), mode);
+    }
+
+    static void assertSameAsFullParse(JsonFileHandler handler, String mode) throws IOException {
+        assertEquals(describe(new WorkflowIndex(handler.readWorkflowFile()).find(mode)),
+                describe(handler.findWorkflowInFile(mode)), mode);
+    }
+
+    /**
+     * Wait for the cache written in the background after a streamed lookup, and for the rebuild to finish.
+     */
+    static void awaitCache(Path cache) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + CACHE_TIMEOUT_MILLIS;
+        while (!Files.exists(cache)) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("No workflow cache was written to " + cache);
+            }
+            Thread.sleep(10);
+        }
+        // The mode index is written after the cache, so let the rebuild finish before the directory is deleted
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("workflow-cache")) {
+                thread.join(CACHE_TIMEOUT_MILLIS);
+            }
+        }
+    }
+
+    static String describe(Optional<Workflow> workflow) {
+        return workflow.map(w -> w.getMode()
+                        + " apps=" + w.getApps()
+                        + " websites=" + w.getWebsites()
+                        + " extends=" + w.getExtends()
+                        + " dependencies=" + describe(w.getDependencies()))
+                .orElse("none");
+    }
+
+    private static String describe(List<ToolDependency> dependencies) {
+        if (dependencies == null) {
+            return "null";
+        }
+        return dependencies.stream()
+                .map(d -> d.getTool() + " after " + d.getDependsOn() + " ready " + describe(d.getReadiness()))
+                .toList()
+                .toString();
+    }
+
+    private static String describe(Readiness readiness) {
+        if (readiness == null) {
+            return "null";
+        }
+        return "port=" + readiness.getPort() + " file=" + readiness.getFile()
+                + " alive=" + readiness.getAliveMillis() + " timeout=" + readiness.getTimeoutMillis();
+    }
+
+    /**
+     * A reader counting the characters read through it.
+     */
+    static final class CountingReader extends FilterReader {
+
+        private long count;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) {
+                count++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+}
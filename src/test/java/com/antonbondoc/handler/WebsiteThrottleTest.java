@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebsiteThrottleTest {
+
+    @Test
+    void burstIsDispatchedConcurrently() throws Exception {
+        WebsiteThrottle throttle = new WebsiteThrottle(1, 3, 0);
+        CountDownLatch inFlight = new CountDownLatch(3);
+        try (ExecutorService executor = Executors.newFixedThreadPool(3)) {
+            List<Future<Boolean>> dispatches = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                dispatches.add(executor.submit(() -> throttle.dispatch("https://example.com/" + dispatches.size(), 1,
+                        () -> {
+                            inFlight.countDown();
+                            return inFlight.await(5, TimeUnit.SECONDS);
+                        })));
+            }
+            for (Future<Boolean> dispatch : dispatches) {
+                assertTrue(dispatch.get(), "Every browser call of the burst is in flight at the same time");
+            }
+        }
+    }
+
+    @Test
+    void batchIsChargedPerWebsite() throws InterruptedException {
+        WebsiteThrottle throttle = new WebsiteThrottle(10, 1, 0);
+
+        long start = System.nanoTime();
+        throttle.dispatch(null, 5, () -> null);
+        throttle.dispatch("https://example.com", 1, () -> null);
+
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(waited >= 450, "Waited " + waited + " ms for 6 websites at 10 per second with a burst of 1");
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.Workflow;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WorkflowComposerTest {
+
+    @Test
+    void extendedModesAreMatchedRegardlessOfCase() {
+        List<Workflow> workflows = List.of(
+                workflow("base", List.of("/usr/bin/editor")),
+                workflow("Work", List.of("/usr/bin/chat"), "Base"));
+
+        assertEquals(List.of("/usr/bin/editor", "/usr/bin/chat"),
+                WorkflowComposer.resolve(workflows).get(1).getApps());
+    }
+
+    @Test
+    void cycleIsReportedWithItsPath() {
+        List<Workflow> workflows = List.of(
+                workflow("a", List.of("/bin/true"), "b"),
+                workflow("b", List.of("/bin/true"), "C"),
+                workflow("c", List.of("/bin/true"), "A"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> WorkflowComposer.resolve(workflows));
+
+        assertEquals("'a' workflow extends itself: a -> b -> c -> a", e.getMessage());
+    }
+
+    @Test
+    void unknownModeIsReported() {
+        List<Workflow> workflows = List.of(workflow("a", List.of("/bin/true"), "missing"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> WorkflowComposer.resolve(workflows));
+
+        assertEquals("'a' workflow extends an unknown workflow 'missing'", e.getMessage());
+    }
+
+    @Test
+    void longChainInheritsEveryTool() {
+        List<Workflow> workflows = new ArrayList<>();
+        workflows.add(workflow("mode-0", List.of("/usr/bin/app-0")));
+        for (int i = 1; i < 2_000; i++) {
+            workflows.add(workflow("mode-" + i, List.of("/usr/bin/app-" + i), "MODE-" + (i - 1)));
+        }
+
+        List<String> apps = WorkflowComposer.resolve(workflows).getLast().getApps();
+
+        assertEquals(2_000, apps.size());
+        assertEquals("/usr/bin/app-0", apps.getFirst());
+        assertEquals("/usr/bin/app-1999", apps.getLast());
+    }
+
+    private static Workflow workflow(String mode, List<String> apps, String... extendedModes) {
+        Workflow workflow = new Workflow(mode, apps, null);
+        if (extendedModes.length > 0) {
+            workflow.setExtends(List.of(extendedModes));
+        }
+        return workflow;
+    }
+}
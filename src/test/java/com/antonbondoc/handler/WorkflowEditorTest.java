@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkflowEditorTest {
+
+    private static final String YAML = """
+            # Workflows for the week
+            workflows:
+              # Writing code
+              - mode: dev   # the default
+                apps:
+                  - /bin/true
+                websites: [ "https://github.com" ]
+
+              - mode: Chat
+                apps:
+                  - /bin/cat     # pinned
+            # trailing comment
+            """;
+
+    private static final String JSON = """
+            {
+                "workflows" : [
+                    {"mode": "dev", "apps": ["/bin/true"],   "websites": ["https://github.com"]},
+                    {
+                      "mode":"Chat",
+                      "apps":[ "/bin/cat" ]
+                    }
+                ]
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void yamlOutsideTheEditedWorkflowIsKept() throws IOException {
+        WorkflowEditor editor = editor("workflows.yml", YAML);
+
+        assertTrue(editor.addTool("chat", "/bin/sleep"));
+        assertFile(editor, YAML.replace("/bin/cat     # pinned\n", "/bin/cat     # pinned\n      - /bin/sleep\n"));
+
+        editor = editor("workflows.yml", YAML);
+        assertTrue(editor.removeTool("CHAT", "/bin/cat"));
+        assertFile(editor, YAML.replace("    apps:\n      - /bin/cat     # pinned\n", ""));
+
+        editor = editor("workflows.yml", YAML);
+        assertTrue(editor.addTool("Dev", "www.example.com"));
+        assertFile(editor, YAML.replace("[ \"https://github.com\" ]", "[ \"https://github.com\", \"www.example.com\" ]"));
+
+        editor = editor("workflows.yml", YAML);
+        editor.addMode("music");
+        assertFile(editor, YAML.replace("# pinned\n", "# pinned\n  - mode: music\n"));
+    }
+
+    @Test
+    void jsonOutsideTheEditedWorkflowIsKept() throws IOException {
+        WorkflowEditor editor = editor("workflows.json", JSON);
+
+        assertTrue(editor.addTool("chat", "/bin/sleep"));
+        assertFile(editor, JSON.replace("[ \"/bin/cat\" ]", "[ \"/bin/cat\", \"/bin/sleep\" ]"));
+
+        editor = editor("workflows.json", JSON);
+        assertTrue(editor.removeTool("CHAT", "/bin/cat"));
+        assertFile(editor, JSON.replace("[ \"/bin/cat\" ]", "[]"));
+
+        editor = editor("workflows.json", JSON);
+        assertTrue(editor.addTool("Dev", "www.example.com"));
+        assertFile(editor, JSON.replace("[\"https://github.com\"]", "[\"https://github.com\", \"www.example.com\"]"));
+
+        editor = editor("workflows.json", JSON);
+        editor.addMode("music");
+        assertFile(editor, JSON.replace("        }\n", "        },\n        {\"mode\": \"music\"}\n"));
+    }
+
+    @Test
+    void unchangedEditsLeaveTheFileAlone() throws IOException {
+        WorkflowEditor editor = editor("workflows.yml", YAML);
+
+        assertFalse(editor.addTool("dev", "/bin/true"));
+        assertFalse(editor.removeTool("dev", "/bin/cat"));
+        assertThrows(IOException.class, () -> editor.addMode("CHAT"));
+        assertFile(editor, YAML);
+    }
+
+    private WorkflowEditor editor(String name, String content) throws IOException {
+        return new WorkflowEditor(Files.writeString(directory.resolve(name), content));
+    }
+
+    /**
+     * Check the edited file byte for byte and that the edit did not leave its lock file behind.
+     */
+    private void assertFile(WorkflowEditor editor, String expected) throws IOException {
+        assertEquals(expected, Files.readString(editor.getWorkflowFile()));
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+}
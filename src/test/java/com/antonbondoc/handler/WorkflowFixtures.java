@@ -0,0 +1,128 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.antonbondoc.handler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Generates synthetic workflow files for the benchmarks and the latency harness.
+ */
+public final class WorkflowFixtures {
+
+    private WorkflowFixtures() {
+    }
+
+    public static String mode(int index) {
+        return "mode" + index;
+    }
+
+    /**
+     * Write a workflow file with the given number of modes, each with a few apps and websites of its own plus some
+     * shared by every mode.
+     *
+     * @param directory the directory to write the workflow file to
+     * @param format    either {@code yaml} or {@code json}
+     * @param modes     the number of modes to generate
+     * @return the handler reading the generated file
+     */
+    public static FileHandler write(Path directory, String format, int modes) {
+        return write(directory, format, modes, i -> List.of("/usr/bin/editor", "/opt/tools/tool-" + i));
+    }
+
+    /**
+     * Write a workflow file with the given number of modes and the given apps for each mode.
+     *
+     * @param directory the directory to write the workflow file to
+     * @param format    either {@code yaml} or {@code json}
+     * @param modes     the number of modes to generate
+     * @param apps      the apps of the mode with the given index
+     * @return the handler reading the generated file
+     */
+    public static FileHandler write(Path directory, String format, int modes, IntFunction<List<String>> apps) {
+        try {
+            if (format.equals("yaml")) {
+                writeYaml(directory.resolve("workflows.yml"), modes, apps);
+                return new YamlFileHandler(directory);
+            }
+            writeJson(directory.resolve("workflows.json"), modes, apps);
+            return new JsonFileHandler(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeYaml(Path file, int modes, IntFunction<List<String>> apps) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("workflows:\n");
+            for (int i = 0; i < modes; i++) {
+                writer.write("- mode: " + mode(i) + "\n");
+                writer.write("  apps:\n");
+                for (String app : apps.apply(i)) {
+                    writer.write("  - " + app + "\n");
+                }
+                writer.write("  websites:\n");
+                writer.write("  - https://github.com\n");
+                writer.write("  - https://example.com/" + i + "\n");
+                writer.write("  - https://docs.example.com/" + (i % 100) + "\n");
+            }
+        }
+    }
+
+    private static void writeJson(Path file, int modes, IntFunction<List<String>> apps) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("{\"workflows\":[\n");
+            for (int i = 0; i < modes; i++) {
+                if (i > 0) {
+                    writer.write(",\n");
+                }
+                writer.write("{\"mode\":\"" + mode(i) + "\","
+                        + "\"apps\":[" + apps.apply(i).stream()
+                        .map(app -> "\"" + app.replace("\\", "\\\\") + "\"")
+                        .collect(Collectors.joining(",")) + "],"
+                        + "\"websites\":[\"https://github.com\",\"https://example.com/" + i + "\","
+                        + "\"https://docs.example.com/" + (i % 100) + "\"]}");
+            }
+            writer.write("\n]}\n");
+        }
+    }
+
+    /**
+     * Delete a generated fixture directory.
+     */
+    public static void delete(Path directory) {
+        try (var files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
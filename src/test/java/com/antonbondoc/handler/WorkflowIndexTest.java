@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.Workflow;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkflowIndexTest {
+
+    @Test
+    void compactWorkflowIsCompiledOnce() {
+        WorkflowIndex index = new WorkflowIndex(CompactWorkflows.of(List.of(
+                new Workflow("work", List.of("/bin/true"), List.of("https://example.com")),
+                new Workflow("play", List.of("/bin/false"), null))));
+
+        Workflow workflow = index.find("work").orElseThrow();
+
+        assertSame(workflow, index.find("WORK").orElseThrow());
+        assertSame(LaunchGraph.compile(workflow), LaunchGraph.compile(index.find("work").orElseThrow()));
+    }
+
+    @Test
+    void firstWorkflowOfAModeIsFoundRegardlessOfCase() {
+        WorkflowIndex index = new WorkflowIndex(List.of(
+                new Workflow("Work", List.of("/bin/true"), null),
+                new Workflow("WORK", List.of("/bin/false"), null),
+                new Workflow("workshop", List.of("/bin/false"), null)));
+
+        assertEquals(List.of("/bin/true"), index.find("wOrK").orElseThrow().getApps());
+        assertTrue(index.find("wor").isEmpty());
+        assertEquals(List.of("Work", "workshop"), index.findByPrefix("WOR", 10));
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.Workflow;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WorkflowMergerTest {
+
+    @Test
+    void websitesWithAndWithoutSchemeAreOpenedOnce() {
+        assertEquals(WorkflowMerger.websiteKey("https://www.example.com"), WorkflowMerger.websiteKey("www.example.com"));
+        assertEquals(WorkflowMerger.websiteKey("HTTPS://WWW.example.com:443/"),
+                WorkflowMerger.websiteKey(" www.Example.com "));
+
+        Workflow merged = WorkflowMerger.merge(List.of(
+                new Workflow("dev", null, List.of("www.example.com", "https://github.com")),
+                new Workflow("chat", null, List.of("https://www.example.com/", "github.com/"))));
+
+        assertEquals(List.of("www.example.com", "https://github.com"), merged.getWebsites());
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.handler;
+
+import com.antonbondoc.model.Workflow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static com.antonbondoc.handler.StreamingLookups.assertSameAsFullParse;
+import static com.antonbondoc.handler.StreamingLookups.awaitCache;
+import static com.antonbondoc.handler.StreamingLookups.describe;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YamlFileHandlerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void stopsReadingOnceTheWorkflowIsFound() throws IOException {
+        StringBuilder content = new StringBuilder("workflows:\n");
+        for (int i = 0; i < 20_000; i++) {
+            content.append("  - mode: mode-").append(i).append('\n')
+                    .append("    apps: [/usr/bin/app-").append(i).append("]\n");
+        }
+        StreamingLookups.CountingReader reader = new StreamingLookups.CountingReader(
+                new StringReader(content.toString()));
+
+        Optional<Workflow> workflow = handler("").streamWorkflow(reader, "mode-1");
+
+        assertEquals("mode-1 apps=[/usr/bin/app-1] websites=null extends=null dependencies=null", describe(workflow));
+        assertTrue(reader.count() < content.length() / 100, "Read " + reader.count() + " of " + content.length());
+    }
+
+    @Test
+    void matchesTheFullParse() throws IOException {
+        String content = """
+                workflows:
+                  - mode: Alpha
+                    apps: [/bin/true, 5, '~', 0x1F]
+                    websites: ~
+                  -
+                  - mode: ~
+                    apps: [/bin/false]
+                  - mode: beta
+                    apps: [/bin/true]
+                    websites:
+                      - https://example.com
+                    dependencies:
+                      - tool: https://example.com
+                        dependsOn: [/bin/true]
+                        readiness: {port: 8080, timeoutMillis: 500}
+                  - mode: gamma
+                    apps: [/bin/true]
+                    extends: [beta]
+                """;
+        for (String mode : new String[]{"alpha", "ALPHA", "beta", "gamma", "delta", "~"}) {
+            assertSameAsFullParse(handler(content), mode);
+        }
+    }
+
+    @Test
+    void aliasesAreResolvedAsByTheFullParse() throws IOException {
+        String content = """
+                workflows:
+                  - mode: alpha
+                    apps: &common
+                      - /bin/true
+                  - mode: beta
+                    apps: *common
+                  - &base
+                    mode: gamma
+                    websites: [https://example.com]
+                  - <<: *base
+                    mode: delta
+                """;
+        YamlFileHandler handler = handler(content);
+        assertThrows(StreamFallbackException.class, () -> handler.streamWorkflow(new StringReader(content), "beta"));
+        for (String mode : new String[]{"alpha", "beta", "gamma", "delta"}) {
+            assertSameAsFullParse(handler, mode);
+        }
+    }
+
+    @Test
+    void tagsAndNumbersLeftToTheFullParse() throws IOException {
+        String content = """
+                workflows:
+                  - mode: alpha
+                    apps: [!!str 5]
+                  - mode: beta
+                    apps: [/bin/true]
+                    dependencies:
+                      - tool: /bin/true
+                        readiness: {port: 0x50}
+                """;
+        YamlFileHandler handler = handler(content);
+        for (String mode : new String[]{"alpha", "beta"}) {
+            assertThrows(StreamFallbackException.class, () -> handler.streamWorkflow(new StringReader(content), mode));
+            assertSameAsFullParse(handler, mode);
+        }
+    }
+
+    @Test
+    void unknownKeysAreNotAccepted() throws IOException {
+        String[] contents = {
+                "bogus: 1\nworkflows:\n  - mode: alpha\n",
+                "workflows:\n  - mode: beta\n    bogus: 1\n  - mode: alpha\n",
+                "workflows:\n  - mode: alpha\n    dependencies: [{tool: x, bogus: 1}]\n",
+        };
+        for (String content : contents) {
+            YamlFileHandler handler = handler(content);
+            assertThrows(IOException.class, handler::readWorkflowFile);
+            assertThrows(StreamFallbackException.class,
+                    () -> handler.streamWorkflow(new StringReader(content), "alpha"));
+        }
+    }
+
+    @Test
+    void readinessThatCanNeverPassIsRejected() throws IOException {
+        String content = """
+                workflows:
+                  - mode: alpha
+                    apps: [/bin/true, /bin/sleep]
+                    dependencies:
+                      - tool: /bin/true
+                        dependsOn: [/bin/sleep]
+                      - tool: /bin/sleep
+                        readiness: {aliveMillis: 1000, timeoutMillis: 500}
+                """;
+
+        IOException e = assertThrows(IOException.class, handler(content)::readWorkflowFile);
+
+        assertEquals("'alpha' workflow waits 1000 ms for '/bin/sleep' to stay alive, longer than its readiness timeout"
+                + " of 500 ms", e.getMessage());
+        handler(content.replace("aliveMillis: 1000", "aliveMillis: 500")).readWorkflowFile();
+        assertThrows(IOException.class,
+                handler(content.replace(", timeoutMillis: 500", "").replace("1000", "60000"))::readWorkflowFile);
+    }
+
+    @Test
+    void streamedLookupLeavesTheCacheBehind() throws IOException, InterruptedException {
+        YamlFileHandler handler = handler("workflows:\n  - mode: alpha\n    apps: [/bin/true]\n");
+
+        assertTrue(handler.findWorkflow("alpha").isPresent());
+
+        awaitCache(directory.resolve(".workflows.yml.bin"));
+    }
+
+    private YamlFileHandler handler(String content) throws IOException {
+        Files.writeString(directory.resolve("workflows.yml"), content);
+        return new YamlFileHandler(directory);
+    }
+}
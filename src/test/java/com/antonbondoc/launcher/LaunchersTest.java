@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.launcher;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LaunchersTest {
+
+    @AfterEach
+    void clearReplacement() {
+        Launchers.replaceWith(null);
+    }
+
+    @Test
+    void appsAreStartedAsProcesses() {
+        assertInstanceOf(ProcessLauncher.class, Launchers.forApps());
+    }
+
+    @Test
+    void noneOnlyRecordsTheWebsites() throws Exception {
+        Launcher launcher = Launchers.forWebsites(Launchers.NONE);
+
+        launcher.launch("https://example.com");
+
+        assertEquals(List.of("https://example.com"), assertInstanceOf(RecordingLauncher.class, launcher).getLaunched());
+    }
+
+    @Test
+    void websiteBackendsAreCreatedOnTheirFirstLaunch() {
+        for (String backend : List.of(Launchers.AUTO, Launchers.DESKTOP, Launchers.OPEN)) {
+            Launcher launcher = Launchers.forWebsites(backend);
+
+            assertFalse(launcher instanceof DesktopLauncher, backend);
+            assertFalse(launcher instanceof OpenCommandLauncher, backend);
+        }
+    }
+
+    @Test
+    void unknownWebsiteBackendIsRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Launchers.forWebsites("browser"));
+
+        assertEquals("Unknown website launcher 'browser', expected one of auto, desktop, open, none", e.getMessage());
+    }
+
+    @Test
+    void openCommandIsOnlyAvailableWhenInstalled() {
+        assertTrue(new OpenCommandLauncher(List.of("/bin/true")).isAvailable());
+        assertFalse(new OpenCommandLauncher(List.of("antika-no-such-open-command")).isAvailable());
+    }
+
+    @Test
+    void replacementIsUsedForEveryBackend() throws Exception {
+        Launchers.replaceWith(RecordingLauncher::new);
+
+        Launcher apps = Launchers.forApps();
+        apps.launch("/usr/bin/editor");
+
+        assertEquals(List.of("/usr/bin/editor"), assertInstanceOf(RecordingLauncher.class, apps).getLaunched());
+        for (String backend : Launchers.WEBSITE_BACKENDS) {
+            Launcher websites = assertInstanceOf(RecordingLauncher.class, Launchers.forWebsites(backend), backend);
+            assertNotSame(apps, websites, backend);
+        }
+    }
+
+    @Test
+    void backendsAreUsedAgainOnceTheReplacementIsCleared() {
+        Launchers.replaceWith(RecordingLauncher::new);
+        Launchers.replaceWith(null);
+
+        assertInstanceOf(ProcessLauncher.class, Launchers.forApps());
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2024] [Anton Bondoc]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.antonbondoc.launcher;
+
+/**
+ * Stands in for the real launchers in the latency harness: it waits for the simulated launch latency and then only
+ * records the tool instead of opening it.
+ */
+public class SimulatedLauncher extends RecordingLauncher {
+
+    /**
+     * The system property holding the simulated latency of a single launch in milliseconds.
+     */
+    public static final String LATENCY_PROPERTY = "antika.launcher.latencyMillis";
+
+    private final long latencyMillis = Long.getLong(LATENCY_PROPERTY, 0);
+
+    /**
+     * Replace every launcher backend of this JVM with a simulated launcher.
+     */
+    public static void install() {
+        Launchers.replaceWith(SimulatedLauncher::new);
+    }
+
+    @Override
+    public ProcessHandle launch(String tool) {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return super.launch(tool);
+    }
+}